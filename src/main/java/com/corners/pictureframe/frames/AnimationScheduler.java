@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.frames;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import javax.swing.Timer;
+
+/**
+ * Animation scheduler class.
+ * 
+ * <p> Drives the animations of every {@link PictureFrame} in the JVM with a
+ * single timer ticking at the refresh rate of the default screen. The timer
+ * only runs while there are animations in progress, so idle picture frames do
+ * not wake up any thread.
+ * 
+ * <p> All the methods must be called on the event dispatch thread, where the
+ * animations are also ticked.
+ * 
+ * @author Erick Rincones
+ */
+final class AnimationScheduler {
+    
+    /**
+     * An animation ticked by the scheduler.
+     */
+    interface Animation {
+        
+        /**
+         * Advances the animation.
+         * 
+         * @param now the current time in nanoseconds
+         * 
+         * @return true if the animation is still in progress
+         */
+        boolean animate(long now);
+        
+    }
+    
+    /**
+     * The refresh rate used when the screen does not report it.
+     */
+    private static final int DEFAULT_REFRESH_RATE = 60;
+    
+    /**
+     * The animations in progress.
+     */
+    private static final ArrayList<Animation> ANIMATIONS = new ArrayList<>();
+    
+    /**
+     * The shared timer.
+     */
+    private static final Timer TIMER = new Timer(1000 / refreshRate(), AnimationScheduler::tick);
+    
+    /**
+     * This class is not instantiable.
+     */
+    private AnimationScheduler() {
+    }
+    
+    /**
+     * Gets the refresh rate of the default screen.
+     * 
+     * @return the refresh rate in hertz
+     */
+    private static int refreshRate() {
+        if (GraphicsEnvironment.isHeadless()) return DEFAULT_REFRESH_RATE;
+        
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN || rate <= 0 ? DEFAULT_REFRESH_RATE : rate;
+    }
+    
+    /**
+     * Schedules an animation and starts the timer if was stopped.
+     * 
+     * <p> An animation already scheduled is not added twice.
+     * 
+     * @param animation the animation to schedule
+     */
+    static void schedule(Animation animation) {
+        if (ANIMATIONS.contains(animation)) return;
+        
+        ANIMATIONS.add(animation);
+        if (!TIMER.isRunning()) TIMER.start();
+    }
+    
+    /**
+     * Ticks all the animations, removing the finished ones, and stops the
+     * timer when there is nothing left to animate.
+     * 
+     * @param e the timer event
+     */
+    private static void tick(ActionEvent e) {
+        long now = System.nanoTime();
+        
+        // Animate and compact the animations in progress
+        int count = 0;
+        for (int i = 0; i < ANIMATIONS.size(); i++) {
+            Animation animation = ANIMATIONS.get(i);
+            if (animation.animate(now))
+                ANIMATIONS.set(count++, animation);
+        }
+        
+        for (int i = ANIMATIONS.size() - 1; i >= count; i--)
+            ANIMATIONS.remove(i);
+        
+        // Flush the frame and stop when idle
+        Toolkit.getDefaultToolkit().sync();
+        if (count == 0) TIMER.stop();
+    }
+    
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.frames;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * EXIF orientation reader class.
+ * 
+ * <p> Reads the orientation tag of the EXIF metadata of JPEG images, without
+ * decoding the image. The orientation is one of the eight values defined by
+ * the EXIF specification, where {@code 1} is the normal orientation.
+ * 
+ * @author Erick Rincones
+ * 
+ * @see PictureFrame#setOrientation(int)
+ */
+public final class ExifOrientation {
+    
+    /**
+     * The normal orientation.
+     */
+    public static final int NORMAL = 1;
+    
+    /**
+     * The EXIF tag of the orientation.
+     */
+    private static final int ORIENTATION_TAG = 0x0112;
+    
+    /**
+     * This class is not instantiable.
+     */
+    private ExifOrientation() {
+    }
+    
+    /**
+     * Reads the orientation of the given image file.
+     * 
+     * @param file the image file
+     * 
+     * @return the orientation, or {@link NORMAL} if the file has no orientation
+     * 
+     * @throws IOException if the file cannot be read
+     * 
+     * @see read(InputStream)
+     */
+    public static int read(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            return read(in);
+        }
+    }
+    
+    /**
+     * Reads the orientation of the image in the given stream.
+     * 
+     * <p> The stream is read up to the end of the EXIF metadata, or of the
+     * segment that shows there is none, and is not closed. The stream is not
+     * buffered, so the caller should buffer an unbuffered stream.
+     * 
+     * @param stream the image stream
+     * 
+     * @return the orientation, or {@link NORMAL} if the stream is not a JPEG
+     *         image or has no orientation
+     * 
+     * @throws IOException if the stream cannot be read
+     */
+    public static int read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        
+        try {
+            // Check the start of image marker
+            if (in.readUnsignedShort() != 0xFFD8) return NORMAL;
+            
+            // Look for the APP1 segment before the image data
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9)
+                    return NORMAL;
+                
+                int length = in.readUnsignedShort() - 2;
+                if (length < 0) return NORMAL;
+                
+                if (marker == 0xFFE1) {
+                    byte[] segment = new byte[length];
+                    in.readFully(segment);
+                    
+                    int orientation = parse(segment);
+                    if (orientation != 0) return orientation;
+                }
+                
+                else {
+                    while (length > 0) {
+                        int skipped = in.skipBytes(length);
+                        if (skipped <= 0) {
+                            in.readByte();
+                            skipped = 1;
+                        }
+                        
+                        length -= skipped;
+                    }
+                }
+            }
+        } catch (EOFException ex) {
+            return NORMAL;
+        }
+    }
+    
+    /**
+     * Parses the orientation from an APP1 segment.
+     * 
+     * @param segment the content of the segment
+     * 
+     * @return the orientation, {@link NORMAL} if is invalid or {@code 0} if
+     *         the segment has no EXIF metadata
+     */
+    private static int parse(byte[] segment) {
+        // Check the EXIF header
+        if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i' ||
+                segment[3] != 'f' || segment[4] != 0 || segment[5] != 0)
+            return 0;
+        
+        // Check the TIFF byte order
+        int tiff = 6;
+        boolean little;
+        if      (segment[tiff] == 'I' && segment[tiff + 1] == 'I') little = true;
+        else if (segment[tiff] == 'M' && segment[tiff + 1] == 'M') little = false;
+        else return NORMAL;
+        
+        // Search the orientation in the first IFD
+        long ifd = tiff + readInt(segment, tiff + 4, little);
+        if (ifd < 0 || ifd + 2 > segment.length) return NORMAL;
+        
+        int count = readShort(segment, (int) ifd, little);
+        for (int i = 0; i < count; i++) {
+            int entry = (int) ifd + 2 + 12 * i;
+            if (entry + 12 > segment.length) break;
+            
+            if (readShort(segment, entry, little) == ORIENTATION_TAG) {
+                int orientation = readShort(segment, entry + 8, little);
+                return orientation < 1 || orientation > 8 ? NORMAL : orientation;
+            }
+        }
+        
+        return NORMAL;
+    }
+    
+    /**
+     * Reads an unsigned short.
+     * 
+     * @param data   the data to read
+     * @param index  the index of the first byte
+     * @param little true if the byte order is little endian
+     * 
+     * @return the unsigned short
+     */
+    private static int readShort(byte[] data, int index, boolean little) {
+        int a = data[index] & 0xFF;
+        int b = data[index + 1] & 0xFF;
+        return little ? b << 8 | a : a << 8 | b;
+    }
+    
+    /**
+     * Reads an unsigned int.
+     * 
+     * @param data   the data to read
+     * @param index  the index of the first byte
+     * @param little true if the byte order is little endian
+     * 
+     * @return the unsigned int
+     */
+    private static long readInt(byte[] data, int index, boolean little) {
+        long a = readShort(data, index, little);
+        long b = readShort(data, index + 2, little);
+        return little ? b << 16 | a : a << 16 | b;
+    }
+    
+}
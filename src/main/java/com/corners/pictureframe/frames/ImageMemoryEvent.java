@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.frames;
+
+import java.util.EventObject;
+
+/**
+ * Image memory event class.
+ * 
+ * <p> Notifies that the {@link ImageMemoryManager} has changed the image held
+ * by a {@link PictureFrame}, either reducing it to release memory or restoring
+ * it to its full resolution.
+ * 
+ * @author Erick Rincones
+ */
+public class ImageMemoryEvent extends EventObject {
+    
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = -4209476356218803719L;
+    
+    /**
+     * The kind of change applied to the image.
+     */
+    public enum Type {
+        /**
+         * The image was replaced with a copy of lower resolution.
+         */
+        DOWNSAMPLED,
+        
+        /**
+         * The image was replaced with a thumbnail and the caches released.
+         */
+        EVICTED,
+        
+        /**
+         * The image was restored to its full resolution.
+         */
+        RESTORED
+    }
+    
+    /**
+     * The kind of change.
+     * 
+     * @see getType()
+     */
+    private final Type type;
+    
+    /**
+     * The memory tracked by the {@link ImageMemoryManager} before the change.
+     * 
+     * <p> An image shared by several picture frames is counted once, so the
+     * memory is only released when no picture frame holds it anymore.
+     * 
+     * @see getMemoryBefore()
+     */
+    private final long memory_before;
+    
+    /**
+     * The memory tracked by the {@link ImageMemoryManager} after the change.
+     * 
+     * @see getMemoryAfter()
+     */
+    private final long memory_after;
+    
+    /**
+     * Creates a new image memory event.
+     * 
+     * @param frame  the picture frame whose image changed
+     * @param type   the kind of change
+     * @param before the tracked memory before the change
+     * @param after  the tracked memory after the change
+     */
+    public ImageMemoryEvent(PictureFrame frame, Type type, long before, long after) {
+        super(frame);
+        this.type = type;
+        memory_before = before;
+        memory_after = after;
+    }
+    
+    /**
+     * Gets the picture frame whose image changed.
+     * 
+     * @return the picture frame
+     */
+    public PictureFrame getFrame() {
+        return (PictureFrame) getSource();
+    }
+    
+    /**
+     * Gets the kind of change.
+     * 
+     * @return the {@link type}
+     */
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the memory tracked before the change.
+     * 
+     * @return the {@link memory_before}
+     */
+    public long getMemoryBefore() {
+        return memory_before;
+    }
+    
+    /**
+     * Gets the memory tracked after the change.
+     * 
+     * @return the {@link memory_after}
+     */
+    public long getMemoryAfter() {
+        return memory_after;
+    }
+    
+}
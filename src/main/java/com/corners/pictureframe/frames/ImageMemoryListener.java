@@ -0,0 +1,45 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.frames;
+
+import java.util.EventListener;
+
+/**
+ * The listener interface for receiving image memory events.
+ * 
+ * @author Erick Rincones
+ * 
+ * @see ImageMemoryManager#addImageMemoryListener(ImageMemoryListener)
+ */
+public interface ImageMemoryListener extends EventListener {
+    
+    /**
+     * Invoked on the event dispatch thread when the image of a picture frame
+     * is downsampled, evicted or restored.
+     * 
+     * @param e the image memory event
+     */
+    void imageMemoryChanged(ImageMemoryEvent e);
+    
+}
@@ -0,0 +1,550 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.frames;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.swing.SwingUtilities;
+import javax.swing.event.EventListenerList;
+
+/**
+ * Image memory manager class.
+ * 
+ * <p> Tracks the bytes held by the images and caches of every
+ * {@link PictureFrame} in the JVM against a shared budget. When the budget is
+ * set and exceeded, or the JVM reports that a heap pool is still above the
+ * pressure threshold after a collection, the images of off-screen frames are
+ * evicted and the images of inactive frames are downsampled until enough
+ * memory is released. Only the images set with a loader are reduced, so they
+ * can be read again at full resolution. The picture frames restore their
+ * images on demand, when they are painted again or the user interacts with
+ * them.
+ * 
+ * <p> Every change is performed on the event dispatch thread and reported to
+ * the registered {@link ImageMemoryListener}s.
+ * 
+ * @author Erick Rincones
+ */
+public final class ImageMemoryManager {
+    
+    /**
+     * The shared instance.
+     * 
+     * @see getInstance()
+     */
+    private static final ImageMemoryManager INSTANCE = new ImageMemoryManager();
+    
+    /**
+     * The fraction of the maximum size of a heap pool that is considered
+     * memory pressure after a collection.
+     */
+    private static final float PRESSURE_THRESHOLD = 0.85F;
+    
+    /**
+     * The registered picture frames.
+     * 
+     * <p> The frames are weakly referenced, so a discarded picture frame never
+     * needs to be unregistered.
+     * 
+     * @see register(PictureFrame)
+     * @see unregister(PictureFrame)
+     */
+    private final Map<PictureFrame, Boolean> frames;
+    
+    /**
+     * The list of image memory listeners.
+     * 
+     * @see addImageMemoryListener(ImageMemoryListener)
+     * @see removeImageMemoryListener(ImageMemoryListener)
+     */
+    private final EventListenerList listeners;
+    
+    /**
+     * The reusable list of the registered picture frames, collected to
+     * measure and relieve the memory.
+     * 
+     * @see track(ArrayList, IdentityHashMap)
+     * @see relieve(long, long)
+     */
+    private final ArrayList<PictureFrame> candidates;
+    
+    /**
+     * The number of collected picture frames holding each image.
+     * 
+     * <p> The images are compared by identity, so an image shared by several
+     * picture frames is counted once and only released when no picture frame
+     * holds it anymore.
+     * 
+     * @see track(ArrayList, IdentityHashMap)
+     * @see release(PictureFrame, BufferedImage, long)
+     */
+    private final IdentityHashMap<BufferedImage, Integer> sharers;
+    
+    /**
+     * The number of off-screen picture frames that can evict each image.
+     * 
+     * <p> An image is only evicted if every picture frame holding it can
+     * evict it, else the thumbnails would be added without releasing it.
+     * 
+     * @see relieve(long, long)
+     */
+    private final IdentityHashMap<BufferedImage, Integer> evictable;
+    
+    /**
+     * The memory budget in bytes.
+     * 
+     * <p> A value less than or equal to {@code 0}, the default, disables the
+     * budget, but the heap pressure is still relieved.
+     * 
+     * @see setBudget(long)
+     * @see getBudget()
+     */
+    private volatile long budget;
+    
+    /**
+     * The time in milliseconds without user interaction after which a visible
+     * picture frame is considered inactive and can be downsampled.
+     * 
+     * @see setInactiveTime(long)
+     * @see getInactiveTime()
+     */
+    private volatile long inactive_time;
+    
+    /**
+     * Flag to know if a relief is scheduled.
+     * 
+     * @see requestRelief(boolean)
+     */
+    private boolean relief_scheduled;
+    
+    /**
+     * Flag to know if the scheduled relief was requested by the heap pressure.
+     * 
+     * @see requestRelief(boolean)
+     */
+    private boolean relief_pressure;
+    
+    /**
+     * Creates the image memory manager and listens to the heap pressure
+     * notifications of the JVM.
+     * 
+     * @see listenHeapPressure()
+     */
+    private ImageMemoryManager() {
+        // Initialize fields
+        frames = new WeakHashMap<>();
+        listeners = new EventListenerList();
+        candidates = new ArrayList<>();
+        sharers = new IdentityHashMap<>();
+        evictable = new IdentityHashMap<>();
+        budget = 0L;
+        inactive_time = 30000L;
+        
+        // Listen to the memory pools
+        listenHeapPressure();
+    }
+    
+    /**
+     * Gets the image memory manager shared by all the picture frames.
+     * 
+     * @return the image memory manager
+     */
+    public static ImageMemoryManager getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Computes the bytes held by the given image.
+     * 
+     * @param image the image to measure
+     * 
+     * @return the bytes held by the image, or {@code 0} if is {@code null}
+     */
+    static long sizeOf(BufferedImage image) {
+        if (image == null) return 0L;
+        
+        DataBuffer data = image.getRaster().getDataBuffer();
+        return (long) data.getSize() * data.getNumBanks() * (DataBuffer.getDataTypeSize(data.getDataType()) >> 3);
+    }
+    
+    /**
+     * Sets the collection usage threshold of the heap pools and listens to the
+     * notifications of the memory bean.
+     * 
+     * <p> Thresholds already set by the application are kept.
+     */
+    private void listenHeapPressure() {
+        // Sets the thresholds
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() &&
+                    max > 0L && pool.getCollectionUsageThreshold() == 0L)
+                pool.setCollectionUsageThreshold((long) (max * PRESSURE_THRESHOLD));
+        }
+        
+        // Relieves half of the tracked memory on each notification
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener((Notification n, Object handback) -> {
+            String type = n.getType();
+            if (type.equals(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED) ||
+                    type.equals(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED))
+                requestRelief(true);
+        }, null, null);
+    }
+    
+    /**
+     * Sets the memory budget.
+     * 
+     * <p> A value less than or equal to {@code 0} disables the budget.
+     * 
+     * @param bytes the new memory budget in bytes
+     * 
+     * @see budget
+     * @see getBudget()
+     */
+    public void setBudget(long bytes) {
+        budget = bytes;
+        
+        // Relieves the memory if the new budget is exceeded
+        if (bytes > 0L)
+            requestRelief(false);
+    }
+    
+    /**
+     * Sets the time without user interaction after which a visible picture
+     * frame is considered inactive.
+     * 
+     * @param millis the inactive time in milliseconds
+     * 
+     * @see inactive_time
+     * @see getInactiveTime()
+     */
+    public void setInactiveTime(long millis) {
+        inactive_time = millis < 0L ? 0L : millis;
+    }
+    
+    /**
+     * Gets the memory budget.
+     * 
+     * @return the memory budget in bytes
+     * 
+     * @see budget
+     * @see setBudget(long)
+     */
+    public long getBudget() {
+        return budget;
+    }
+    
+    /**
+     * Gets the time without user interaction after which a visible picture
+     * frame is considered inactive.
+     * 
+     * @return the inactive time in milliseconds
+     * 
+     * @see inactive_time
+     * @see setInactiveTime(long)
+     */
+    public long getInactiveTime() {
+        return inactive_time;
+    }
+    
+    /**
+     * Gets the bytes held by the images and caches of all the registered
+     * picture frames.
+     * 
+     * <p> Must be called on the event dispatch thread, where the picture
+     * frames change their images.
+     * 
+     * @return the tracked memory in bytes
+     */
+    public long getMemoryUsage() {
+        return track(new ArrayList<>(), new IdentityHashMap<>());
+    }
+    
+    /**
+     * Adds an image memory listener.
+     * 
+     * @param listener the listener to add
+     * 
+     * @see removeImageMemoryListener(ImageMemoryListener)
+     */
+    public void addImageMemoryListener(ImageMemoryListener listener) {
+        listeners.add(ImageMemoryListener.class, listener);
+    }
+    
+    /**
+     * Removes an image memory listener.
+     * 
+     * @param listener the listener to remove
+     * 
+     * @see addImageMemoryListener(ImageMemoryListener)
+     */
+    public void removeImageMemoryListener(ImageMemoryListener listener) {
+        listeners.remove(ImageMemoryListener.class, listener);
+    }
+    
+    /**
+     * Registers a picture frame that holds an image.
+     * 
+     * <p> If the budget is set, a relief is scheduled to keep it.
+     * 
+     * @param frame the picture frame to register
+     * 
+     * @see unregister(PictureFrame)
+     */
+    void register(PictureFrame frame) {
+        synchronized (this) {
+            frames.put(frame, Boolean.TRUE);
+        }
+        
+        // Relieves the memory if the budget is set
+        if (budget > 0L)
+            requestRelief(false);
+    }
+    
+    /**
+     * Unregisters a picture frame that does not hold an image anymore.
+     * 
+     * @param frame the picture frame to unregister
+     * 
+     * @see register(PictureFrame)
+     */
+    synchronized void unregister(PictureFrame frame) {
+        frames.remove(frame);
+    }
+    
+    /**
+     * Sets the image of the given picture frame at its full resolution and
+     * notifies the listeners.
+     * 
+     * <p> Must be called on the event dispatch thread.
+     * 
+     * @param frame the picture frame to restore
+     * @param full  the image read at full resolution
+     */
+    void restore(PictureFrame frame, BufferedImage full) {
+        long before = getMemoryUsage();
+        frame.setRestoredImage(full);
+        
+        // Notify and keep the budget
+        fire(frame, ImageMemoryEvent.Type.RESTORED, before, getMemoryUsage());
+        register(frame);
+    }
+    
+    /**
+     * Schedules a relief on the event dispatch thread.
+     * 
+     * <p> The memory usage and the target are computed on the event dispatch
+     * thread, so the picture frames are never read while they change. The
+     * target is the {@link budget}, and half of the tracked memory if the
+     * relief is requested by the heap pressure. Consecutive requests are
+     * coalesced into a single relief.
+     * 
+     * @param pressure true if requested by the heap pressure
+     * 
+     * @see relieve(long, long)
+     */
+    private synchronized void requestRelief(boolean pressure) {
+        relief_pressure |= pressure;
+        
+        // Coalesce with the scheduled relief
+        if (relief_scheduled) return;
+        
+        relief_scheduled = true;
+        SwingUtilities.invokeLater(() -> {
+            boolean heap;
+            synchronized (this) {
+                heap = relief_pressure;
+                relief_scheduled = false;
+                relief_pressure = false;
+            }
+            
+            // Compute the target
+            long usage = track(candidates, sharers);
+            long limit = budget;
+            long target = limit > 0L ? limit : Long.MAX_VALUE;
+            if (heap && usage >> 1 < target)
+                target = usage >> 1;
+            
+            if (usage > target)
+                relieve(target, usage);
+            
+            // Drop the references to the frames and images
+            candidates.clear();
+            sharers.clear();
+        });
+    }
+    
+    /**
+     * Releases memory until the tracked memory is less than or equal to the
+     * given target.
+     * 
+     * <p> The off-screen picture frames are evicted first, then the visible
+     * picture frames inactive for longer than {@link inactive_time} are
+     * downsampled starting from the least recently used. Active picture frames
+     * are never reduced, and neither are the images that would still be held
+     * by another picture frame: a shared image is only evicted if all the
+     * picture frames holding it are off-screen and can be reduced, and is
+     * never downsampled.
+     * 
+     * <p> The {@link candidates} and the {@link sharers} must be collected by
+     * {@link track(ArrayList, IdentityHashMap)}.
+     * 
+     * @param target the memory target in bytes
+     * @param usage  the tracked memory in bytes
+     * 
+     * @see requestRelief(boolean)
+     */
+    private void relieve(long target, long usage) {
+        // Sort the candidates, off-screen frames first then least recently used
+        candidates.sort((PictureFrame a, PictureFrame b) -> {
+            boolean a_off = a.isOffScreen();
+            boolean b_off = b.isOffScreen();
+            if (a_off != b_off) return a_off ? -1 : 1;
+            return Long.compare(a.getLastActivity(), b.getLastActivity());
+        });
+        
+        // Count the frames that can evict each image
+        evictable.clear();
+        for (PictureFrame frame : candidates) {
+            if (frame.isReducible() && frame.isOffScreen())
+                evictable.merge(frame.getHeldImage(), 1, Integer::sum);
+        }
+        
+        long inactive = System.currentTimeMillis() - inactive_time;
+        
+        // Release memory until the target is reached
+        for (int i = 0; i < candidates.size() && usage > target; i++) {
+            PictureFrame frame = candidates.get(i);
+            BufferedImage held = frame.getHeldImage();
+            long caches = frame.getCacheMemoryUsage();
+            long before = usage;
+            
+            // Skip the images that would still be held by other frames
+            int holders = held == null ? 0 : sharers.getOrDefault(held, 0);
+            
+            if (frame.isOffScreen()) {
+                if (holders <= evictable.getOrDefault(held, 0) && frame.evict()) {
+                    usage -= release(frame, held, caches);
+                    fire(frame, ImageMemoryEvent.Type.EVICTED, before, usage);
+                }
+            }
+            
+            else if (holders == 1 && frame.getLastActivity() <= inactive) {
+                while (usage > target && frame.downsample()) {
+                    usage -= release(frame, held, caches);
+                    fire(frame, ImageMemoryEvent.Type.DOWNSAMPLED, before, usage);
+                    held = frame.getHeldImage();
+                    caches = frame.getCacheMemoryUsage();
+                    before = usage;
+                }
+            }
+        }
+        
+        // Drop the references to the images
+        evictable.clear();
+    }
+    
+    /**
+     * Collects the registered picture frames and counts the picture frames
+     * holding each image.
+     * 
+     * @param collected the list to collect the picture frames
+     * @param counted   the map to count the picture frames holding each image
+     * 
+     * @return the bytes held by the distinct images and the caches of the
+     *         picture frames
+     */
+    private long track(ArrayList<PictureFrame> collected, IdentityHashMap<BufferedImage, Integer> counted) {
+        // Collect the frames
+        collected.clear();
+        counted.clear();
+        synchronized (this) {
+            collected.addAll(frames.keySet());
+        }
+        
+        // Count each image once
+        long usage = 0L;
+        for (PictureFrame frame : collected) {
+            usage += frame.getCacheMemoryUsage();
+            BufferedImage held = frame.getHeldImage();
+            if (held != null && counted.merge(held, 1, Integer::sum) == 1)
+                usage += sizeOf(held);
+        }
+        
+        return usage;
+    }
+    
+    /**
+     * Computes the bytes released by the reduction of the image of a picture
+     * frame and updates the {@link sharers}.
+     * 
+     * <p> The replaced image is only released if no other picture frame holds
+     * it.
+     * 
+     * @param frame  the reduced picture frame
+     * @param held   the image held before the reduction
+     * @param caches the bytes held by the caches before the reduction
+     * 
+     * @return the bytes released
+     */
+    private long release(PictureFrame frame, BufferedImage held, long caches) {
+        long released = caches - frame.getCacheMemoryUsage();
+        BufferedImage reduced = frame.getHeldImage();
+        if (sharers.merge(held, -1, Integer::sum) == 0)
+            released += sizeOf(held);
+        if (sharers.merge(reduced, 1, Integer::sum) == 1)
+            released -= sizeOf(reduced);
+        
+        return released;
+    }
+    
+    /**
+     * Notifies the listeners about a change on the image of a picture frame.
+     * 
+     * @param frame  the picture frame whose image changed
+     * @param type   the kind of change
+     * @param before the tracked memory before the change
+     * @param after  the tracked memory after the change
+     */
+    private void fire(PictureFrame frame, ImageMemoryEvent.Type type, long before, long after) {
+        // Notify the listeners
+        ImageMemoryListener[] targets = listeners.getListeners(ImageMemoryListener.class);
+        if (targets.length > 0) {
+            ImageMemoryEvent e = new ImageMemoryEvent(frame, type, before, after);
+            for (ImageMemoryListener listener : targets)
+                listener.imageMemoryChanged(e);
+        }
+    }
+    
+}
@@ -35,8 +35,17 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.event.MouseWheelEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import javax.imageio.ImageIO;
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 /**
  * Picture frame class.
@@ -65,6 +74,111 @@ public class PictureFrame extends JComponent {
      */
     private static final Cursor MOVE_CURSOR = Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR);
     
+    /**
+     * The maximum width and height of an evicted image.
+     * 
+     * @see evict()
+     */
+    private static final int THUMBNAIL_SIZE = 64;
+    
+    /**
+     * The maximum reduction factor of a downsampled image.
+     * 
+     * @see downsample()
+     */
+    private static final int MAX_REDUCTION = 8;
+    
+    /**
+     * The minimum zoom level to draw the pixel grid.
+     * 
+     * @see pixel_grid
+     */
+    private static final float PIXEL_GRID_ZOOM = 8F;
+    
+    /**
+     * The duration in nanoseconds of the zoom animation.
+     * 
+     * @see zoomIn(Point)
+     * @see zoomOut(Point)
+     */
+    private static final long ZOOM_DURATION = 150000000L;
+    
+    /**
+     * The time constant in milliseconds of the fling deceleration.
+     * 
+     * <p> The fling velocity decays exponentially and is reduced to about a
+     * third after this time.
+     * 
+     * @see animate(long)
+     */
+    private static final float FLING_TIME_CONSTANT = 325F;
+    
+    /**
+     * The minimum velocity in pixels per millisecond to start a fling.
+     */
+    private static final float FLING_MIN_VELOCITY = 0.3F;
+    
+    /**
+     * The velocity in pixels per millisecond below which the fling stops.
+     */
+    private static final float FLING_STOP_VELOCITY = 0.01F;
+    
+    /**
+     * The maximum time in milliseconds between the last drag and the release
+     * of the mouse to start a fling.
+     */
+    private static final long FLING_DELAY = 50L;
+    
+    /**
+     * The bit of the orientation that swaps the axes of the image.
+     * 
+     * @see ORIENTATION_BITS
+     */
+    private static final int TRANSPOSE = 4;
+    
+    /**
+     * The bit of the orientation that mirrors the image on the x axis, applied
+     * after {@link TRANSPOSE}.
+     * 
+     * @see ORIENTATION_BITS
+     */
+    private static final int FLIP_X = 2;
+    
+    /**
+     * The bit of the orientation that mirrors the image on the y axis, applied
+     * after {@link TRANSPOSE}.
+     * 
+     * @see ORIENTATION_BITS
+     */
+    private static final int FLIP_Y = 1;
+    
+    /**
+     * The transform bits of each EXIF orientation.
+     * 
+     * <p> The bits map a point of the view to a point of the image, first
+     * swapping the axes with {@link TRANSPOSE} and then mirroring them with
+     * {@link FLIP_X} and {@link FLIP_Y}.
+     * 
+     * @see BITS_ORIENTATION
+     */
+    private static final int[] ORIENTATION_BITS = {0, 0, FLIP_X, FLIP_X | FLIP_Y, FLIP_Y, TRANSPOSE, TRANSPOSE | FLIP_Y, TRANSPOSE | FLIP_X | FLIP_Y, TRANSPOSE | FLIP_X};
+    
+    /**
+     * The EXIF orientation of each combination of transform bits.
+     * 
+     * @see ORIENTATION_BITS
+     */
+    private static final int[] BITS_ORIENTATION = {1, 4, 2, 3, 5, 6, 8, 7};
+    
+    /**
+     * The picture frames resized since the last layout pass.
+     * 
+     * <p> Only accessed on the event dispatch thread.
+     * 
+     * @see layoutResized()
+     */
+    private static final ArrayList<PictureFrame> RESIZED = new ArrayList<>();
+    
     /**
      * Flag to store the dynamic status.
      * 
@@ -87,6 +201,41 @@ public class PictureFrame extends JComponent {
      */
     private boolean antialiasing;
     
+    /**
+     * Flag to store the pixel grid status.
+     * 
+     * <p> When the status is {@code true} and {@link zoom} is at least
+     * {@link PIXEL_GRID_ZOOM}, a grid is drawn between the image pixels.
+     * 
+     * @see setPixelGrid(boolean)
+     * @see isPixelGrid()
+     * @see paintComponent(Graphics)
+     */
+    private boolean pixel_grid;
+    
+    /**
+     * Flag to store the kinetic status.
+     * 
+     * <p> When the status is {@code true} the image keeps moving and slows down
+     * after it is dragged and released with the mouse.
+     * 
+     * @see setKinetic(boolean)
+     * @see isKinetic()
+     */
+    private boolean kinetic;
+    
+    /**
+     * Flag to store the animated status.
+     * 
+     * <p> When the status is {@code true} the {@link zoom} level is eased
+     * towards the new value by {@link zoomIn(Point)} and
+     * {@link zoomOut(Point)}.
+     * 
+     * @see setAnimated(boolean)
+     * @see isAnimated()
+     */
+    private boolean animated;
+    
     /**
      * Flag to store the fitted image status.
      * 
@@ -142,6 +291,89 @@ public class PictureFrame extends JComponent {
      */
     private Point mouse;
     
+    /**
+     * The time in milliseconds of the last mouse drag.
+     */
+    private long drag_time;
+    
+    /**
+     * The animation of the zoom and the fling, driven by the shared
+     * {@link AnimationScheduler}.
+     * 
+     * @see animate(long)
+     */
+    private final AnimationScheduler.Animation animation;
+    
+    /**
+     * Flag to know if the zoom is being animated.
+     */
+    private boolean zooming;
+    
+    /**
+     * The zoom level at the start of the zoom animation.
+     */
+    private float zoom_from;
+    
+    /**
+     * The zoom level at the end of the zoom animation.
+     */
+    private float zoom_to;
+    
+    /**
+     * The time in nanoseconds of the start of the zoom animation.
+     */
+    private long zoom_start;
+    
+    /**
+     * The mouse position where the zoom is being animated.
+     */
+    private final Point zoom_point;
+    
+    /**
+     * The image point kept under the {@link zoom_point} on the x axis.
+     */
+    private float anchor_x;
+    
+    /**
+     * The image point kept under the {@link zoom_point} on the y axis.
+     */
+    private float anchor_y;
+    
+    /**
+     * Flag to know if the image is flinging.
+     */
+    private boolean flinging;
+    
+    /**
+     * The velocity of the image in pixels per millisecond on the x axis.
+     */
+    private float velocity_x;
+    
+    /**
+     * The velocity of the image in pixels per millisecond on the y axis.
+     */
+    private float velocity_y;
+    
+    /**
+     * The fraction of pixel travelled by the fling on the x axis.
+     */
+    private float fling_x;
+    
+    /**
+     * The fraction of pixel travelled by the fling on the y axis.
+     */
+    private float fling_y;
+    
+    /**
+     * The time in nanoseconds of the last fling step.
+     */
+    private long fling_time;
+    
+    /**
+     * The distance of the fling step.
+     */
+    private final Point step;
+    
     /**
      * The location of the image into the picture frame.
      * 
@@ -174,6 +406,100 @@ public class PictureFrame extends JComponent {
      */
     private BufferedImage image;
     
+    /**
+     * The EXIF orientation of the {@link image}.
+     * 
+     * <p> The orientation is applied as part of the view transform, the
+     * pixels of the image are never copied.
+     * 
+     * @see setOrientation(int)
+     * @see getOrientation()
+     * @see ORIENTATION_BITS
+     */
+    private int orientation;
+    
+    /**
+     * The reusable transform to draw the oriented {@link image}.
+     * 
+     * @see paintComponent(Graphics)
+     */
+    private final AffineTransform transform;
+    
+    /**
+     * The renderer of the {@link image} when {@link zoom} is greater than
+     * {@code 1}.
+     * 
+     * <p> Its buffers are released when the image is not magnified.
+     * 
+     * @see paintComponent(Graphics)
+     */
+    private final PixelBlitter blitter;
+    
+    /**
+     * The width of the image at full resolution.
+     * 
+     * <p> The {@link image} can be replaced by a reduced copy when the
+     * {@link ImageMemoryManager} releases memory, so the view is always
+     * computed with this width.
+     * 
+     * @see image_height
+     * @see setImage(BufferedImage, Callable, boolean)
+     */
+    private int image_width;
+    
+    /**
+     * The height of the image at full resolution.
+     * 
+     * @see image_width
+     * @see setImage(BufferedImage, Callable, boolean)
+     */
+    private int image_height;
+    
+    /**
+     * The loader used to restore the image at full resolution.
+     * 
+     * <p> The {@link image} is never reduced when there is no loader.
+     * 
+     * @see setImage(BufferedImage, Callable, boolean)
+     * @see restore()
+     */
+    private Callable<BufferedImage> loader;
+    
+    /**
+     * Flag to store the evicted status.
+     * 
+     * <p> When is {@code true} the {@link image} is a thumbnail and the full
+     * resolution image is restored the next time the picture frame is painted
+     * while showing.
+     * 
+     * @see evict()
+     * @see paintComponent(Graphics)
+     */
+    private boolean evicted;
+    
+    /**
+     * Flag to know if the {@link loader} is reading the image at full
+     * resolution.
+     * 
+     * @see restore()
+     */
+    private boolean restoring;
+    
+    /**
+     * The time in milliseconds of the last user interaction.
+     * 
+     * @see touch()
+     * @see getLastActivity()
+     */
+    private long activity;
+    
+    /**
+     * Flag to know if the picture frame is waiting for the layout pass.
+     * 
+     * @see layoutResized()
+     */
+    private boolean resized;
+    
     /**
      * Creates a new picture frame without image.
      * 
@@ -182,13 +508,22 @@ public class PictureFrame extends JComponent {
     public PictureFrame() {
         // Initialize fields
         dynamic = true;
+        kinetic = true;
+        animated = true;
         fitted = true;
         zoom = 0F;
         zoom_min = 0F;
         zoom_max = 20F;
         location = new Point();
         size = new Dimension();
+        blitter = new PixelBlitter();
+        transform = new AffineTransform();
+        orientation = ExifOrientation.NORMAL;
+        animation = this::animate;
+        zoom_point = new Point();
+        step = new Point();
         image = null;
+        activity = System.currentTimeMillis();
         
         // Sets the listeners
         setListeners();
@@ -205,13 +540,28 @@ public class PictureFrame extends JComponent {
     public PictureFrame(BufferedImage img) {
         // Initialize fields
         dynamic = true;
+        kinetic = true;
+        animated = true;
         fitted = true;
         zoom = 0F;
         zoom_min = 0F;
         zoom_max = 20F;
         location = new Point();
         size = new Dimension();
+        blitter = new PixelBlitter();
+        transform = new AffineTransform();
+        orientation = ExifOrientation.NORMAL;
+        animation = this::animate;
+        zoom_point = new Point();
+        step = new Point();
         image = img;
+        image_width = img == null ? 0 : img.getWidth();
+        image_height = img == null ? 0 : img.getHeight();
+        activity = System.currentTimeMillis();
+        
+        // Tracks the image memory
+        if (img != null)
+            ImageMemoryManager.getInstance().register(this);
         
         // Updates the zoom_min, zoom, size and locaion values
         refresh(null);
@@ -230,7 +580,13 @@ public class PictureFrame extends JComponent {
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                refresh(null);
+                // Defers the refresh to a single layout pass for all the frames
+                if (resized) return;
+                
+                resized = true;
+                if (RESIZED.isEmpty())
+                    SwingUtilities.invokeLater(PictureFrame::layoutResized);
+                RESIZED.add(PictureFrame.this);
             }
         });
         
@@ -238,8 +594,21 @@ public class PictureFrame extends JComponent {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                if (dynamic && image != null && e.getButton() == MouseEvent.BUTTON1)
+                if (dynamic && image != null && e.getButton() == MouseEvent.BUTTON1) {
                     mouse = e.getPoint();
+                    drag_time = e.getWhen();
+                    velocity_x = 0F;
+                    velocity_y = 0F;
+                    flinging = false;
+                    zooming = false;
+                    touch();
+                }
+            }
+            
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (dynamic && kinetic && image != null && e.getButton() == MouseEvent.BUTTON1 && e.getWhen() - drag_time <= FLING_DELAY)
+                    fling();
             }
 
             @Override
@@ -258,9 +627,18 @@ public class PictureFrame extends JComponent {
             @Override
             public void mouseDragged(MouseEvent e) {
                 if (dynamic && image != null && e.getModifiersEx() == MouseEvent.BUTTON1_DOWN_MASK) {
+                    touch();
                     Point mouse_new = e.getPoint();
                     moveImage(new Point(mouse_new.x - mouse.x, mouse_new.y - mouse.y));
-
+                    
+                    // Smooths the drag velocity
+                    long elapsed = e.getWhen() - drag_time;
+                    if (elapsed > 0L) {
+                        velocity_x = 0.8F * (mouse_new.x - mouse.x) / elapsed + 0.2F * velocity_x;
+                        velocity_y = 0.8F * (mouse_new.y - mouse.y) / elapsed + 0.2F * velocity_y;
+                        drag_time = e.getWhen();
+                    }
+                    
                     mouse = mouse_new;
                 }
             }
@@ -268,9 +646,11 @@ public class PictureFrame extends JComponent {
         
         // Adds the wheel listener
         addMouseWheelListener((MouseWheelEvent e) -> {
-            if (dynamic)
+            if (dynamic && image != null) {
+                touch();
                 if (e.getPreciseWheelRotation() < 0D) zoomIn(e.getPoint());
                 else                                  zoomOut(e.getPoint());
+            }
         });
     }
     
@@ -299,6 +679,47 @@ public class PictureFrame extends JComponent {
         antialiasing = status;
     }
     
+    /**
+     * Sets the {@link kinetic} status.
+     * 
+     * @param status the kinetic status
+     * 
+     * @see kinetic
+     * @see isKinetic()
+     */
+    public void setKinetic(boolean status) {
+        kinetic = status;
+        if (!status) flinging = false;
+    }
+    
+    /**
+     * Sets the {@link animated} status.
+     * 
+     * @param status the animated status
+     * 
+     * @see animated
+     * @see isAnimated()
+     * @see zoomIn(Point)
+     * @see zoomOut(Point)
+     */
+    public void setAnimated(boolean status) {
+        animated = status;
+    }
+    
+    /**
+     * Sets the {@link pixel_grid} status.
+     * 
+     * @param status the pixel grid status
+     * 
+     * @see pixel_grid
+     * @see isPixelGrid()
+     * @see paintComponent(Graphics)
+     */
+    public void setPixelGrid(boolean status) {
+        pixel_grid = status;
+        repaint();
+    }
+    
     /**
      * Sets the zoom level.
      * 
@@ -330,25 +751,49 @@ public class PictureFrame extends JComponent {
         if (point == null)
             point = new Point(getWidth() >> 1, getHeight() >> 1);
         
-        // Saves the old zoom
-        float zoom_old = zoom;
+        // Stops the zoom animation
+        zooming = false;
+        
+        // Keeps the image point under the mouse, or the image center without zoom
+        float x = zoom > 0F ? (point.x - location.x) / zoom : viewWidth() * 0.5F;
+        float y = zoom > 0F ? (point.y - location.y) / zoom : viewHeight() * 0.5F;
         
+        applyZoom(zoom_new, point.x, point.y, x, y);
+    }
+    
+    /**
+     * Applies the zoom level keeping the given view point under the mouse.
+     * 
+     * <p> The {@code zoom_new} is clamped between {@link zoom_min} and
+     * {@link zoom_max}, and the {@link location} is clamped to keep the image
+     * inside the picture frame.
+     * 
+     * @param zoom_new the zoom level
+     * @param mouse_x  the mouse position on the x axis
+     * @param mouse_y  the mouse position on the y axis
+     * @param x        the view point on the x axis, in image pixels
+     * @param y        the view point on the y axis, in image pixels
+     * 
+     * @see setZoom(float, Point)
+     * @see animate(long)
+     */
+    private void applyZoom(float zoom_new, int mouse_x, int mouse_y, float x, float y) {
         // Set and apply the new zoom level
         zoom = zoom_new < zoom_max ? (zoom_new > zoom_min ? zoom_new : zoom_min) : zoom_max;
-        size.width = (int) (zoom * image.getWidth());
-        size.height = (int) (zoom * image.getHeight());
+        size.width = (int) (zoom * viewWidth());
+        size.height = (int) (zoom * viewHeight());
+        
+        // Release the buffers of the blitter if the image is not magnified
+        if (zoom <= 1F)
+            blitter.release();
         
         // Updates the fitted flag and the cursor
         fitted = zoom == zoom_min;
         setCursor(fitted ? DEFAULT_CURSOR : MOVE_CURSOR);
         
-        // Round fixer and zoom factor
-        float round = zoom > zoom_old ? 0.5F : -0.5F;
-        float factor = 1F - zoom / zoom_old;
-        
         // Realocate horizontally
         int dx = getWidth() - size.width;
-        location.x -= (int) ((location.x - point.x) * factor + round);
+        location.x = Math.round(mouse_x - x * zoom);
         
              if (dx >  0)                   location.x = dx >> 1;
         else if (dx == 0 || location.x > 0) location.x = 0;
@@ -356,7 +801,7 @@ public class PictureFrame extends JComponent {
         
         // Realocate vertically
         int dy = getHeight() - size.height;
-        location.y -= (int) ((location.y - point.y) * factor + round);
+        location.y = Math.round(mouse_y - y * zoom);
         
              if (dy >  0)                   location.y = dy >> 1;
         else if (dy == 0 || location.y > 0) location.y = 0;
@@ -381,6 +826,23 @@ public class PictureFrame extends JComponent {
         zoom_max = zoom_max_new < 1F ? 1F : zoom_max_new;
     }
     
+    /**
+     * Sets the orientation of the image.
+     * 
+     * <p> The {@code orientation_new} is one of the eight EXIF orientations,
+     * an invalid value leads to {@link ExifOrientation#NORMAL}. The image
+     * point at the center of the picture frame is kept at the center.
+     * 
+     * @param orientation_new the new EXIF orientation
+     * 
+     * @see orientation
+     * @see getOrientation()
+     * @see ExifOrientation
+     */
+    public void setOrientation(int orientation_new) {
+        orient(orientation_new < 1 || orientation_new > 8 ? ExifOrientation.NORMAL : orientation_new);
+    }
+    
     /**
      * Sets the image location.
      * 
@@ -435,19 +897,102 @@ public class PictureFrame extends JComponent {
      * 
      * @see image
      * @see fitted
+     * @see setImage(BufferedImage, Callable, boolean)
      * @see getImage()
      * @see paintComponents(Graphics)
      */
     public void setImage(BufferedImage image_new, boolean fit_image) {
+        setImage(image_new, null, fit_image);
+    }
+    
+    /**
+     * Sets a new image with the loader to restore it.
+     * 
+     * <p> The {@link ImageMemoryManager} may reduce the image of an inactive or
+     * off-screen picture frame to release memory. The {@code image_loader} is
+     * called on a background thread to restore the image at full resolution,
+     * and must return an image with the same size as {@code image_new}. If is
+     * {@code null}, the image is never reduced.
+     * 
+     * <p> If {@code fit_image} is {@code true}, the image will be fitted into
+     * the picture frame.
+     * 
+     * @param image_new    the new image
+     * @param image_loader the loader to restore the image, can be {@code null}
+     * @param fit_image    true to fit the image
+     * 
+     * @see image
+     * @see loader
+     * @see fitted
+     * @see getImage()
+     */
+    public void setImage(BufferedImage image_new, Callable<BufferedImage> image_loader, boolean fit_image) {
+        setImage(image_new, image_loader, ExifOrientation.NORMAL, fit_image);
+    }
+    
+    /**
+     * Sets a new image read from the given file.
+     * 
+     * <p> The image is shown with the orientation of its EXIF metadata, and is
+     * read again from the file when it needs to be restored.
+     * 
+     * <p> If {@code fit_image} is {@code true}, the image will be fitted into
+     * the picture frame.
+     * 
+     * @param file      the image file
+     * @param fit_image true to fit the image
+     * 
+     * @throws IOException if the file cannot be read or is not a supported
+     *                     image
+     * 
+     * @see setImage(BufferedImage, Callable, boolean)
+     * @see ExifOrientation#read(File)
+     */
+    public void setImage(File file, boolean fit_image) throws IOException {
+        // Read the image and the orientation
+        BufferedImage image_new = ImageIO.read(file);
+        if (image_new == null)
+            throw new IOException("Unsupported image format: " + file);
+        
+        setImage(image_new, () -> ImageIO.read(file), ExifOrientation.read(file), fit_image);
+    }
+    
+    /**
+     * Sets a new image with the loader to restore it and its orientation.
+     * 
+     * @param image_new       the new image
+     * @param image_loader    the loader to restore the image
+     * @param orientation_new the EXIF orientation of the image
+     * @param fit_image       true to fit the image
+     * 
+     * @see setImage(BufferedImage, Callable, boolean)
+     * @see setImage(File, boolean)
+     */
+    private void setImage(BufferedImage image_new, Callable<BufferedImage> image_loader, int orientation_new, boolean fit_image) {
         // Set the new image
         image = image_new;
+        orientation = orientation_new;
+        loader = image_loader;
+        zooming = false;
+        flinging = false;
+        evicted = false;
+        activity = System.currentTimeMillis();
         
         // Repaint and return if the image is null
         if (image == null) {
+            image_width = 0;
+            image_height = 0;
+            blitter.release();
+            ImageMemoryManager.getInstance().unregister(this);
             repaint();
             return;
         }
         
+        // Tracks the image memory
+        image_width = image.getWidth();
+        image_height = image.getHeight();
+        ImageMemoryManager.getInstance().register(this);
+        
         // Update zoom variables
         if (fitted |= fit_image)
             zoom = 0F;
@@ -470,6 +1015,18 @@ public class PictureFrame extends JComponent {
         return zoom;
     }
     
+    /**
+     * Gets the {@link orientation} of the image.
+     * 
+     * @return the EXIF orientation
+     * 
+     * @see orientation
+     * @see setOrientation(int)
+     */
+    public int getOrientation() {
+        return orientation;
+    }
+    
     /**
      * Gets the current minimum zoom level.
      * 
@@ -523,9 +1080,47 @@ public class PictureFrame extends JComponent {
         return new Dimension(size.width, size.height);
     }
     
+    /**
+     * Gets the pixel of the {@link image} shown at the given position.
+     * 
+     * <p> The pixel is computed with the same mapping used to draw the image,
+     * so it is exact at any {@link zoom} level and {@link orientation}.
+     * 
+     * @param point the position in the picture frame
+     * 
+     * @return the pixel coordinates in the image, or {@code null} if there is
+     *         no image at the given position
+     * 
+     * @see location
+     * @see size
+     */
+    public Point getImagePixel(Point point) {
+        // Check if image is null or empty
+        if (image == null || size.width <= 0 || size.height <= 0) return null;
+        
+        // Map the position to the view
+        int u = point.x - location.x;
+        int v = point.y - location.y;
+        if (u < 0 || v < 0 || u >= size.width || v >= size.height) return null;
+        
+        u = (int) ((long) u * viewWidth() / size.width);
+        v = (int) ((long) v * viewHeight() / size.height);
+        
+        // Map the view to the image
+        int bits = ORIENTATION_BITS[orientation];
+        int x = (bits & TRANSPOSE) != 0 ? v : u;
+        int y = (bits & TRANSPOSE) != 0 ? u : v;
+        
+        return new Point((bits & FLIP_X) != 0 ? image_width - 1 - x : x, (bits & FLIP_Y) != 0 ? image_height - 1 - y : y);
+    }
+    
     /**
      * Gets the {@link image}.
      * 
+     * <p> If the image was reduced by the {@link ImageMemoryManager}, the
+     * reduced copy is returned until the picture frame restores it, when it is
+     * painted again or the user interacts with it.
+     * 
      * @return the {@link image}
      * 
      * @see image
@@ -560,6 +1155,42 @@ public class PictureFrame extends JComponent {
         return antialiasing;
     }
     
+    /**
+     * Gets the {@link kinetic} status.
+     * 
+     * @return the {@link kinetic} status
+     * 
+     * @see kinetic
+     * @see setKinetic(boolean)
+     */
+    public boolean isKinetic() {
+        return kinetic;
+    }
+    
+    /**
+     * Gets the {@link animated} status.
+     * 
+     * @return the {@link animated} status
+     * 
+     * @see animated
+     * @see setAnimated(boolean)
+     */
+    public boolean isAnimated() {
+        return animated;
+    }
+    
+    /**
+     * Gets the {@link pixel_grid} status.
+     * 
+     * @return the {@link pixel_grid} status
+     * 
+     * @see pixel_grid
+     * @see setPixelGrid(boolean)
+     */
+    public boolean isPixelGrid() {
+        return pixel_grid;
+    }
+    
     /**
      * Gets the {@link fitted} status.
      * 
@@ -593,6 +1224,9 @@ public class PictureFrame extends JComponent {
      * {@link setZoom(float, Point)} method is called with the current
      * {@link zoom} with the given {@code poin} as mouse poisition.
      * 
+     * <p> While the zoom is being animated only {@link zoom_min} is updated,
+     * the next animation step resizes and realocates the image.
+     * 
      * @param point the mouse position
      * 
      * @see image
@@ -605,32 +1239,91 @@ public class PictureFrame extends JComponent {
         if (image == null) return;
         
         // Updates the minimum zoom
-        float width = (float) getWidth() / (float) image.getWidth();
-        float height = (float) getHeight() / (float) image.getHeight();
-        zoom_min = width < height ? (width < 1F ? width : 1F) : (height < 1F ? height : 1F);
+        updateMinZoom();
         
-        // Resize and realocate the image
+        // Resize and realocate the image, unless the zoom animation does it
+        if (zooming) return;
         if (fitted) fit();
         else        setZoom(zoom, point);
     }
     
+    /**
+     * Refreshes all the picture frames resized since the last layout pass.
+     * 
+     * <p> The resize events are coalesced, so a burst of resizes, even over
+     * many picture frames, costs a single refresh for each picture frame.
+     * 
+     * <p> The list is cleared even if a refresh throws, so the next resize
+     * events still schedule a layout pass.
+     * 
+     * @see RESIZED
+     * @see refresh(Point)
+     */
+    private static void layoutResized() {
+        try {
+            for (int i = 0; i < RESIZED.size(); i++) {
+                PictureFrame frame = RESIZED.get(i);
+                frame.resized = false;
+                frame.refresh(null);
+            }
+        } finally {
+            for (PictureFrame frame : RESIZED)
+                frame.resized = false;
+            
+            RESIZED.clear();
+        }
+    }
+    
+    /**
+     * Updates the {@link zoom_min} to fit the oriented image.
+     * 
+     * @see refresh(Point)
+     * @see orient(int)
+     */
+    private void updateMinZoom() {
+        float width = (float) getWidth() / (float) viewWidth();
+        float height = (float) getHeight() / (float) viewHeight();
+        zoom_min = width < height ? (width < 1F ? width : 1F) : (height < 1F ? height : 1F);
+    }
+    
     /**
      * <p> The {@link image} is drawed at the stored {@link location} and with
-     * the stored {@link size}.
+     * the stored {@link size}, transformed with its {@link orientation}.
      * 
      * <p> Antialiasing is applied if the {@link antialiasing} flag is
-     * {@code true} and the {@link zoom} level is less than {@code 1}.
+     * {@code true} and the {@link zoom} level is less than {@code 1}. At
+     * {@code 1} the image is drawn without scaling, and above the image is
+     * drawn pixel exact by the {@link blitter}, with the pixel grid if the
+     * {@link pixel_grid} flag is {@code true} and the {@link zoom} level is at
+     * least {@link PIXEL_GRID_ZOOM}.
+     * 
+     * <p> If the {@link image} is evicted and the picture frame is showing,
+     * its restoration is scheduled. Paints of a hidden picture frame, like
+     * printing or drawing into an image, keep the thumbnail.
      * 
      * @see image
      * @see zoom
      * @see size
      * @see location
      * @see antialiasing
+     * @see pixel_grid
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         
+        // Restore the evicted image once visible again
+        if (evicted && isShowing())
+            restore();
+        
+        // Draw the image pixel exact if the zoom is greater than 1
+        int bits = ORIENTATION_BITS[orientation];
+        if (image != null && zoom > 1F) {
+            blitter.paint(g, image, location.x, location.y, size.width, size.height, getWidth(), getHeight(),
+                    (bits & TRANSPOSE) != 0, (bits & FLIP_X) != 0, (bits & FLIP_Y) != 0, pixel_grid && zoom >= PIXEL_GRID_ZOOM);
+            return;
+        }
+        
         // Antialiasing if the zoom is less than 1
         if (antialiasing && zoom < 1F) {
             Graphics2D g2d = (Graphics2D) g;
@@ -638,8 +1331,29 @@ public class PictureFrame extends JComponent {
             g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
         }
         
-        // Draw the image
-        g.drawImage(image, location.x, location.y, size.width, size.height, this);
+        // Draw the image, without scaling at zoom 1
+        if (bits == 0 || image == null) {
+            g.drawImage(image, location.x, location.y, size.width, size.height, this);
+            return;
+        }
+        
+        // Draw the oriented image, mapping the image to the view
+        float scale_x = (float) size.width / viewWidth();
+        float scale_y = (float) size.height / viewHeight();
+        float flip_x = (bits & FLIP_X) != 0 ? -1F : 1F;
+        float flip_y = (bits & FLIP_Y) != 0 ? -1F : 1F;
+        float move_x = (bits & FLIP_X) != 0 ? image_width : 0F;
+        float move_y = (bits & FLIP_Y) != 0 ? image_height : 0F;
+        
+        if ((bits & TRANSPOSE) != 0)
+            transform.setTransform(0F, scale_y * flip_x, scale_x * flip_y, 0F, location.x + scale_x * move_y, location.y + scale_y * move_x);
+        else
+            transform.setTransform(scale_x * flip_x, 0F, 0F, scale_y * flip_y, location.x + scale_x * move_x, location.y + scale_y * move_y);
+        
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.transform(transform);
+        g2d.drawImage(image, 0, 0, image_width, image_height, this);
+        g2d.dispose();
     }
     
     /**
@@ -676,13 +1390,18 @@ public class PictureFrame extends JComponent {
      * <p> If the mouse position is {@code null}, then the center of the picture
      * frame is used as the location to apply the {@link zoom}.
      * 
+     * <p> If the {@link animated} flag is {@code true}, the {@link zoom} level
+     * is eased towards the new value. Consecutive calls accumulate over the
+     * final value of the animation in progress.
+     * 
      * @param point the mouse position
      * 
      * @see setZoom(float, Point)
+     * @see animated
      * @see zoom
      */
     public void zoomIn(Point point) {
-        setZoom(zoom * 1.25F, point);
+        animateZoom((zooming ? zoom_to : zoom) * 1.25F, point);
     }
     
     /**
@@ -691,13 +1410,189 @@ public class PictureFrame extends JComponent {
      * <p> If the mouse position is {@code null}, then the center of the picture
      * frame is used as the location to apply the {@link zoom}.
      * 
+     * <p> If the {@link animated} flag is {@code true}, the {@link zoom} level
+     * is eased towards the new value. Consecutive calls accumulate over the
+     * final value of the animation in progress.
+     * 
      * @param point the mouse position
      * 
      * @see setZoom(float, Point)
+     * @see animated
      * @see zoom
      */
     public void zoomOut(Point point) {
-        setZoom(zoom / 1.25F, point);
+        animateZoom((zooming ? zoom_to : zoom) / 1.25F, point);
+    }
+    
+    /**
+     * Starts the zoom animation towards the given zoom level.
+     * 
+     * <p> The zoom is applied at once if the {@link animated} flag is
+     * {@code false} or the image has no zoom yet, and nothing is animated if
+     * the zoom level is already at the limited target, like when zooming past
+     * {@link zoom_max} or {@link zoom_min}.
+     * 
+     * @param zoom_new the final zoom level
+     * @param point    the mouse position
+     * 
+     * @see animate(long)
+     */
+    private void animateZoom(float zoom_new, Point point) {
+        // Apply at once if is not animated
+        if (!animated || image == null || zoom <= 0F) {
+            setZoom(zoom_new, point);
+            return;
+        }
+        
+        // Nothing to animate if the zoom is already at the limit
+        float target = zoom_new < zoom_max ? (zoom_new > zoom_min ? zoom_new : zoom_min) : zoom_max;
+        if (target == zoom) {
+            zooming = false;
+            return;
+        }
+        
+        // Center mouse if is null
+        if (point == null) zoom_point.setLocation(getWidth() >> 1, getHeight() >> 1);
+        else               zoom_point.setLocation(point);
+        
+        // Keeps the image point under the mouse
+        anchor_x = (zoom_point.x - location.x) / zoom;
+        anchor_y = (zoom_point.y - location.y) / zoom;
+        
+        // Start the animation from the current zoom
+        zoom_from = zoom;
+        zoom_to = target;
+        zoom_start = System.nanoTime();
+        zooming = true;
+        flinging = false;
+        AnimationScheduler.schedule(animation);
+    }
+    
+    /**
+     * Starts the fling with the current drag velocity.
+     * 
+     * <p> The fling only starts if the image is not fitted and the velocity is
+     * at least {@link FLING_MIN_VELOCITY}.
+     * 
+     * @see animate(long)
+     */
+    private void fling() {
+        if (fitted || velocity_x * velocity_x + velocity_y * velocity_y < FLING_MIN_VELOCITY * FLING_MIN_VELOCITY)
+            return;
+        
+        fling_x = 0F;
+        fling_y = 0F;
+        fling_time = System.nanoTime();
+        flinging = true;
+        AnimationScheduler.schedule(animation);
+    }
+    
+    /**
+     * Advances the zoom animation and the fling.
+     * 
+     * <p> The zoom is eased out with a cubic curve during
+     * {@link ZOOM_DURATION}. The fling velocity decays exponentially with
+     * {@link FLING_TIME_CONSTANT} and stops on the image edges.
+     * 
+     * @param now the current time in nanoseconds
+     * 
+     * @return true if the zoom or the fling are still in progress
+     * 
+     * @see AnimationScheduler
+     */
+    private boolean animate(long now) {
+        // Advance the zoom
+        if (zooming) {
+            float t = (float) (now - zoom_start) / ZOOM_DURATION;
+            if (t >= 1F) {
+                t = 1F;
+                zooming = false;
+            }
+            
+            float ease = 1F - (1F - t) * (1F - t) * (1F - t);
+            applyZoom(zoom_from + (zoom_to - zoom_from) * ease, zoom_point.x, zoom_point.y, anchor_x, anchor_y);
+        }
+        
+        // Advance the fling
+        if (flinging) {
+            float elapsed = (now - fling_time) / 1000000F;
+            float decay = (float) Math.exp(-elapsed / FLING_TIME_CONSTANT);
+            fling_time = now;
+            
+            // Integrate the decaying velocity
+            fling_x += velocity_x * FLING_TIME_CONSTANT * (1F - decay);
+            fling_y += velocity_y * FLING_TIME_CONSTANT * (1F - decay);
+            velocity_x *= decay;
+            velocity_y *= decay;
+            
+            // Move the whole pixels
+            step.x = (int) fling_x;
+            step.y = (int) fling_y;
+            fling_x -= step.x;
+            fling_y -= step.y;
+            
+            int x = location.x;
+            int y = location.y;
+            moveImage(step);
+            
+            // Stop on the edges
+            if (step.x != 0 && location.x == x) velocity_x = 0F;
+            if (step.y != 0 && location.y == y) velocity_y = 0F;
+            
+            flinging = !fitted && (Math.abs(velocity_x) >= FLING_STOP_VELOCITY || Math.abs(velocity_y) >= FLING_STOP_VELOCITY);
+        }
+        
+        return zooming || flinging;
+    }
+    
+    /**
+     * Rotates the {@link image} 90 degrees clockwise.
+     * 
+     * <p> The rotation is applied to the view, the pixels of the image are
+     * never copied.
+     * 
+     * @see orientation
+     * @see rotateCounterClockwise()
+     */
+    public void rotateClockwise() {
+        int bits = ORIENTATION_BITS[orientation];
+        orient(BITS_ORIENTATION[(bits & TRANSPOSE) != 0 ? (~bits & FLIP_X) | (bits & FLIP_Y) : TRANSPOSE | (bits & FLIP_X) | (~bits & FLIP_Y)]);
+    }
+    
+    /**
+     * Rotates the {@link image} 90 degrees counterclockwise.
+     * 
+     * <p> The rotation is applied to the view, the pixels of the image are
+     * never copied.
+     * 
+     * @see orientation
+     * @see rotateClockwise()
+     */
+    public void rotateCounterClockwise() {
+        int bits = ORIENTATION_BITS[orientation];
+        orient(BITS_ORIENTATION[(bits & TRANSPOSE) != 0 ? (bits & FLIP_X) | (~bits & FLIP_Y) : TRANSPOSE | (~bits & FLIP_X) | (bits & FLIP_Y)]);
+    }
+    
+    /**
+     * Mirrors the {@link image} horizontally.
+     * 
+     * @see orientation
+     * @see flipVertical()
+     */
+    public void flipHorizontal() {
+        int bits = ORIENTATION_BITS[orientation];
+        orient(BITS_ORIENTATION[bits ^ ((bits & TRANSPOSE) != 0 ? FLIP_Y : FLIP_X)]);
+    }
+    
+    /**
+     * Mirrors the {@link image} vertically.
+     * 
+     * @see orientation
+     * @see flipHorizontal()
+     */
+    public void flipVertical() {
+        int bits = ORIENTATION_BITS[orientation];
+        orient(BITS_ORIENTATION[bits ^ ((bits & TRANSPOSE) != 0 ? FLIP_X : FLIP_Y)]);
     }
     
     /**
@@ -734,4 +1629,293 @@ public class PictureFrame extends JComponent {
         repaint();
     }
     
+    /**
+     * Gets the width of the view of the image, that is, the width of the
+     * image after to apply the {@link orientation}.
+     * 
+     * @return the view width in image pixels
+     */
+    private int viewWidth() {
+        return (ORIENTATION_BITS[orientation] & TRANSPOSE) != 0 ? image_height : image_width;
+    }
+    
+    /**
+     * Gets the height of the view of the image, that is, the height of the
+     * image after to apply the {@link orientation}.
+     * 
+     * @return the view height in image pixels
+     */
+    private int viewHeight() {
+        return (ORIENTATION_BITS[orientation] & TRANSPOSE) != 0 ? image_width : image_height;
+    }
+    
+    /**
+     * Applies a new {@link orientation} keeping the image point at the center
+     * of the picture frame.
+     * 
+     * <p> The {@link zoom_min} is updated for the new view size and the image
+     * is fitted again if the {@link fitted} flag is {@code true}.
+     * 
+     * @param orientation_new the new EXIF orientation
+     * 
+     * @see setOrientation(int)
+     * @see applyZoom(float, int, int, float, float)
+     */
+    private void orient(int orientation_new) {
+        // Stops the animations
+        zooming = false;
+        flinging = false;
+        
+        // Apply at once if there is no view yet
+        if (image == null || zoom <= 0F) {
+            orientation = orientation_new;
+            refresh(null);
+            return;
+        }
+        
+        // Map the center of the picture frame to the image
+        int center_x = getWidth() >> 1;
+        int center_y = getHeight() >> 1;
+        float u = (center_x - location.x) / zoom;
+        float v = (center_y - location.y) / zoom;
+        
+        int bits = ORIENTATION_BITS[orientation];
+        float x = (bits & TRANSPOSE) != 0 ? v : u;
+        float y = (bits & TRANSPOSE) != 0 ? u : v;
+        if ((bits & FLIP_X) != 0) x = image_width - x;
+        if ((bits & FLIP_Y) != 0) y = image_height - y;
+        
+        // Map the image point to the new view
+        orientation = orientation_new;
+        bits = ORIENTATION_BITS[orientation];
+        if ((bits & FLIP_X) != 0) x = image_width - x;
+        if ((bits & FLIP_Y) != 0) y = image_height - y;
+        u = (bits & TRANSPOSE) != 0 ? y : x;
+        v = (bits & TRANSPOSE) != 0 ? x : y;
+        
+        // Resize and realocate the image
+        updateMinZoom();
+        if (fitted) fit();
+        else        applyZoom(zoom, center_x, center_y, u, v);
+    }
+    
+    /**
+     * Registers the user interaction and restores the {@link image} if it was
+     * reduced.
+     * 
+     * @see activity
+     * @see restore()
+     */
+    private void touch() {
+        activity = System.currentTimeMillis();
+        if (isReduced())
+            restore();
+    }
+    
+    /**
+     * Checks if the {@link image} is smaller than its full resolution.
+     * 
+     * @return true if the {@link image} is reduced
+     * 
+     * @see image_width
+     * @see image_height
+     */
+    boolean isReduced() {
+        return image != null && (image.getWidth() != image_width || image.getHeight() != image_height);
+    }
+    
+    /**
+     * Checks if the {@link image} can be reduced.
+     * 
+     * @return true if there is an {@link image} not evicted and a
+     *         {@link loader} to restore it
+     * 
+     * @see downsample()
+     * @see evict()
+     */
+    boolean isReducible() {
+        return image != null && !evicted && loader != null;
+    }
+    
+    /**
+     * Checks if the picture frame is not visible on the screen.
+     * 
+     * @return true if the picture frame is hidden or scrolled out of view
+     */
+    boolean isOffScreen() {
+        return !isShowing() || getVisibleRect().isEmpty();
+    }
+    
+    /**
+     * Gets the time of the last user interaction.
+     * 
+     * @return the {@link activity} time in milliseconds
+     * 
+     * @see activity
+     */
+    long getLastActivity() {
+        return activity;
+    }
+    
+    /**
+     * Gets the {@link image} held by the picture frame.
+     * 
+     * <p> Unlike {@link getImage()}, is meant to be measured by the
+     * {@link ImageMemoryManager}, which counts once the images shared by
+     * several picture frames.
+     * 
+     * @return the {@link image}
+     * 
+     * @see getCacheMemoryUsage()
+     */
+    BufferedImage getHeldImage() {
+        return image;
+    }
+    
+    /**
+     * Gets the bytes held by the caches of the picture frame.
+     * 
+     * @return the memory used by the {@link blitter} in bytes
+     * 
+     * @see getHeldImage()
+     */
+    long getCacheMemoryUsage() {
+        return blitter.getMemoryUsage();
+    }
+    
+    /**
+     * Replaces the {@link image} with a copy of half the size.
+     * 
+     * <p> The image is never reduced more than {@link MAX_REDUCTION} times
+     * its full resolution, nor if there is no {@link loader} to restore it.
+     * 
+     * @return true if the {@link image} was downsampled
+     * 
+     * @see restore()
+     */
+    boolean downsample() {
+        if (image == null || evicted || loader == null) return false;
+        
+        // Check the maximum reduction
+        int width = image.getWidth() >> 1;
+        int height = image.getHeight() >> 1;
+        if (width == 0 || height == 0 || width < image_width / MAX_REDUCTION || height < image_height / MAX_REDUCTION)
+            return false;
+        
+        // Reduce the image
+        reduce(width, height);
+        return true;
+    }
+    
+    /**
+     * Replaces the {@link image} with a thumbnail.
+     * 
+     * <p> The thumbnail fits into {@link THUMBNAIL_SIZE} pixels and is shown
+     * until the picture frame is painted again. The image is never evicted if
+     * there is no {@link loader} to restore it.
+     * 
+     * @return true if the {@link image} was evicted
+     * 
+     * @see restore()
+     * @see paintComponent(Graphics)
+     */
+    boolean evict() {
+        if (image == null || evicted || loader == null) return false;
+        
+        // Check the thumbnail is smaller than the image
+        float scale = (float) THUMBNAIL_SIZE / (image_width > image_height ? image_width : image_height);
+        int width = Math.max(1, (int) (image_width * scale));
+        int height = Math.max(1, (int) (image_height * scale));
+        if (width >= image.getWidth() && height >= image.getHeight())
+            return false;
+        
+        // Reduce the image and release the caches
+        reduce(width, height);
+        blitter.release();
+        evicted = true;
+        return true;
+    }
+    
+    /**
+     * Restores the {@link image} at full resolution.
+     * 
+     * <p> The image is read again with the {@link loader} on a background
+     * thread, and set on the event dispatch thread by the
+     * {@link ImageMemoryManager}. A loader that fails, or returns an image of
+     * another size, is discarded and the reduced image is kept.
+     * 
+     * @see restoring
+     * @see setRestoredImage(BufferedImage)
+     * @see downsample()
+     * @see evict()
+     */
+    void restore() {
+        if (restoring || loader == null || !isReduced()) return;
+        
+        // Read the image at full resolution in background
+        restoring = true;
+        Callable<BufferedImage> source = loader;
+        new SwingWorker<BufferedImage, Void>() {
+            @Override
+            protected BufferedImage doInBackground() throws Exception {
+                return source.call();
+            }
+            
+            @Override
+            protected void done() {
+                restoring = false;
+                
+                // Ignore the image if it was replaced meanwhile
+                if (loader != source || !isReduced()) return;
+                
+                BufferedImage full;
+                try {
+                    full = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    full = null;
+                }
+                
+                // Discard the loader if it fails
+                if (full == null || full.getWidth() != image_width || full.getHeight() != image_height) {
+                    loader = null;
+                    evicted = false;
+                    return;
+                }
+                
+                ImageMemoryManager.getInstance().restore(PictureFrame.this, full);
+            }
+        }.execute();
+    }
+    
+    /**
+     * Sets the {@link image} read at full resolution by {@link restore()}.
+     * 
+     * @param full the image at full resolution
+     */
+    void setRestoredImage(BufferedImage full) {
+        image = full;
+        evicted = false;
+        activity = System.currentTimeMillis();
+        repaint();
+    }
+    
+    /**
+     * Replaces the {@link image} with a scaled copy.
+     * 
+     * @param width  the width of the copy
+     * @param height the height of the copy
+     */
+    private void reduce(int width, int height) {
+        // Draw the scaled copy
+        BufferedImage copy = new BufferedImage(width, height, image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = copy.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(image, 0, 0, width, height, null);
+        g2d.dispose();
+        
+        // Set the copy
+        image = copy;
+        repaint();
+    }
+    
 }
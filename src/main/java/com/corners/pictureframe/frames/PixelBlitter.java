@@ -0,0 +1,309 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.frames;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+
+/**
+ * Pixel blitter class.
+ * 
+ * <p> Renders an image magnified with the nearest neighbor interpolation. The
+ * visible pixels are written as whole blocks into a reusable buffer of the
+ * size of the visible area of the image, which is then drawn without scaling,
+ * so the result is pixel exact regardless of the rendering hints and nothing
+ * is allocated for each frame once the buffer exists.
+ * 
+ * @author Erick Rincones
+ * 
+ * @see PictureFrame#paintComponent(java.awt.Graphics)
+ */
+final class PixelBlitter {
+    
+    /**
+     * The color of the pixel grid.
+     */
+    private static final int GRID_COLOR = 0xFF808080;
+    
+    /**
+     * The buffer drawn into the picture frame.
+     * 
+     * @see pixels
+     * @see ensure(int, int, int)
+     */
+    private BufferedImage buffer;
+    
+    /**
+     * The pixels of the {@link buffer}.
+     */
+    private int[] pixels;
+    
+    /**
+     * The index into the {@link line} of the source pixel of each column.
+     */
+    private int[] columns;
+    
+    /**
+     * The columns where a new pixel block starts.
+     */
+    private int[] edges;
+    
+    /**
+     * The visible pixels of the current source line.
+     */
+    private int[] line;
+    
+    /**
+     * The reusable data elements of a pixel of an image of other type than
+     * the {@link buffer}.
+     * 
+     * @see convert(BufferedImage, int, int, int, boolean)
+     */
+    private Object element;
+    
+    /**
+     * The transfer type of the {@link element}.
+     */
+    private int element_type;
+    
+    /**
+     * The number of data elements of the {@link element}.
+     */
+    private int element_count;
+    
+    /**
+     * The reusable clip bounds.
+     */
+    private final Rectangle clip;
+    
+    /**
+     * Creates a new pixel blitter without buffer.
+     */
+    PixelBlitter() {
+        clip = new Rectangle();
+    }
+    
+    /**
+     * Draws the image at the given location and size.
+     * 
+     * <p> Only the area of the image inside the viewport and the clip of the
+     * graphics context is rendered.
+     * 
+     * <p> The orientation maps a point of the view to a point of the image,
+     * first swapping the axes if {@code transpose} is {@code true} and then
+     * mirroring them. When the axes are swapped, each row of the view is read
+     * from a column of the image.
+     * 
+     * @param g               the graphics context
+     * @param image           the image to draw
+     * @param x               the image location on the x axis
+     * @param y               the image location on the y axis
+     * @param width           the width of the magnified view
+     * @param height          the height of the magnified view
+     * @param viewport_width  the width of the viewport
+     * @param viewport_height the height of the viewport
+     * @param transpose       true to swap the axes of the image
+     * @param flip_x          true to mirror the x axis of the image
+     * @param flip_y          true to mirror the y axis of the image
+     * @param grid            true to draw the pixel grid
+     */
+    void paint(Graphics g, BufferedImage image, int x, int y, int width, int height,
+            int viewport_width, int viewport_height, boolean transpose, boolean flip_x, boolean flip_y, boolean grid) {
+        // Visible area of the image
+        clip.setBounds(0, 0, viewport_width, viewport_height);
+        g.getClipBounds(clip);
+        
+        int left = Math.max(Math.max(x, clip.x), 0);
+        int top = Math.max(Math.max(y, clip.y), 0);
+        int right = Math.min(Math.min(x + width, clip.x + clip.width), viewport_width);
+        int bottom = Math.min(Math.min(y + height, clip.y + clip.height), viewport_height);
+        if (right <= left || bottom <= top) return;
+        
+        int w = right - left;
+        int h = bottom - top;
+        
+        // Image pixels across and along the rows of the view
+        int across = transpose ? image.getHeight() : image.getWidth();
+        int along = transpose ? image.getWidth() : image.getHeight();
+        boolean mirror_across = transpose ? flip_y : flip_x;
+        boolean mirror_along = transpose ? flip_x : flip_y;
+        ensure(w, h, image.getType());
+        int stride = buffer.getWidth();
+        
+        // Map the columns to the visible span of the source lines
+        int first = (int) ((long) (left - x) * across / width);
+        int last = (int) ((long) (right - 1 - x) * across / width);
+        int span = last - first + 1;
+        int start = mirror_across ? across - 1 - last : first;
+        int edge_count = 0;
+        int previous = left > x ? (int) ((long) (left - 1 - x) * across / width) : -1;
+        
+        for (int c = 0; c < w; c++) {
+            int column = (int) ((long) (left + c - x) * across / width);
+            columns[c] = mirror_across ? last - column : column - first;
+            
+            // Mark the start of a pixel block
+            if (column != previous) {
+                edges[edge_count++] = c;
+                previous = column;
+            }
+        }
+        
+        // Fill the rows, copying the last row with content inside a block
+        WritableRaster raster = image.getRaster();
+        boolean direct = image.getType() == buffer.getType();
+        int content = -1;
+        int above = top > y ? (int) ((long) (top - 1 - y) * along / height) : -1;
+        previous = -1;
+        
+        for (int r = 0, row = 0; r < h; r++, row += stride) {
+            int source = (int) ((long) (top + r - y) * along / height);
+            
+            // Read the visible span of a new source line
+            if (source != previous) {
+                int index = mirror_along ? along - 1 - source : source;
+                
+                     if (transpose && direct) raster.getDataElements(index, start, 1, span, line);
+                else if (transpose)           convert(image, index, start, span, true);
+                else if (direct)              raster.getDataElements(start, index, span, 1, line);
+                else                          convert(image, start, index, span, false);
+                
+                previous = source;
+                content = -1;
+                
+                // Draw the horizontal line of the pixel grid
+                if (grid && (r > 0 || source != above)) {
+                    for (int c = 0; c < w; c++)
+                        pixels[row + c] = GRID_COLOR;
+                    continue;
+                }
+            }
+            
+            // Copy the row with content
+            if (content >= 0) {
+                System.arraycopy(pixels, content, pixels, row, w);
+                continue;
+            }
+            
+            // Write the pixel blocks
+            for (int c = 0; c < w; c++)
+                pixels[row + c] = line[columns[c]];
+            
+            // Draw the vertical lines of the pixel grid
+            if (grid)
+                for (int e = 0; e < edge_count; e++)
+                    pixels[row + edges[e]] = GRID_COLOR;
+            
+            content = row;
+        }
+        
+        // Blit the buffer without scaling
+        g.drawImage(buffer, left, top, right, bottom, 0, 0, w, h, null);
+    }
+    
+    /**
+     * Reads the pixels of a line of the image into the {@link line},
+     * converted to the default RGB color model.
+     * 
+     * <p> Unlike {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)},
+     * each pixel is read into the reusable {@link element}, so nothing is
+     * allocated once the element exists.
+     * 
+     * @param image    the image to read
+     * @param x        the x coordinate of the first pixel
+     * @param y        the y coordinate of the first pixel
+     * @param count    the number of pixels to read
+     * @param vertical true to read a column instead of a row
+     */
+    private void convert(BufferedImage image, int x, int y, int count, boolean vertical) {
+        WritableRaster raster = image.getRaster();
+        ColorModel model = image.getColorModel();
+        
+        // Discard the element of another kind of raster
+        if (element_type != raster.getTransferType() || element_count != raster.getNumDataElements()) {
+            element = null;
+            element_type = raster.getTransferType();
+            element_count = raster.getNumDataElements();
+        }
+        
+        for (int i = 0; i < count; i++) {
+            element = raster.getDataElements(vertical ? x : x + i, vertical ? y + i : y, element);
+            line[i] = model.getRGB(element);
+        }
+    }
+    
+    /**
+     * Ensures the buffers can hold a visible area of the given size.
+     * 
+     * <p> The buffer is only created again when the visible area grows or the
+     * type of the image changes.
+     * 
+     * @param width  the width of the visible area
+     * @param height the height of the visible area
+     * @param type   the type of the image to draw
+     */
+    private void ensure(int width, int height, int type) {
+        // Draw opaque images into opaque buffers
+        int buffer_type = type == BufferedImage.TYPE_INT_RGB ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        
+        if (buffer == null || buffer.getType() != buffer_type || buffer.getWidth() < width || buffer.getHeight() < height) {
+            if (buffer != null) {
+                width = Math.max(width, buffer.getWidth());
+                height = Math.max(height, buffer.getHeight());
+            }
+            
+            buffer = new BufferedImage(width, height, buffer_type);
+            pixels = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+            columns = new int[width];
+            edges = new int[width];
+            line = new int[width];
+        }
+    }
+    
+    /**
+     * Releases the buffers.
+     */
+    void release() {
+        buffer = null;
+        element = null;
+        pixels = null;
+        columns = null;
+        edges = null;
+        line = null;
+    }
+    
+    /**
+     * Gets the bytes held by the buffers.
+     * 
+     * @return the memory used in bytes
+     */
+    long getMemoryUsage() {
+        return buffer == null ? 0L : ((long) pixels.length + columns.length + edges.length + line.length) << 2;
+    }
+    
+}
@@ -23,7 +23,8 @@
  */
 
 /**
- * Contains the picture frame class to show images.
+ * Contains the picture frame class to show images and the image memory
+ * manager shared by all the picture frames.
  * 
  * @author Erick Rincones
  */
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.stress;
+
+import com.corners.pictureframe.frames.PictureFrame;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+
+/**
+ * Counting picture frame class.
+ * 
+ * <p> A picture frame that counts its resize events, layout passes, repaint
+ * requests and paints for the {@link StressHarness}. Every layout pass of a
+ * picture frame ends setting the zoom level, so the calls to
+ * {@link #setZoom(float, Point)} are counted as layout passes.
+ * 
+ * <p> The counters are only updated on the event dispatch thread.
+ * 
+ * @author Erick Rincones
+ */
+class CountingFrame extends PictureFrame {
+    
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = 5861304717920433524L;
+    
+    /**
+     * The number of resize events.
+     */
+    long resizes;
+    
+    /**
+     * The number of layout passes.
+     */
+    long layouts;
+    
+    /**
+     * The number of repaint requests.
+     */
+    long repaints;
+    
+    /**
+     * The number of paints.
+     */
+    long paints;
+    
+    /**
+     * Creates a new counting picture frame without image.
+     */
+    CountingFrame() {
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                resizes++;
+            }
+        });
+    }
+    
+    /**
+     * Resets the counters.
+     */
+    void reset() {
+        resizes = 0L;
+        layouts = 0L;
+        repaints = 0L;
+        paints = 0L;
+    }
+    
+    @Override
+    public void setZoom(float zoom_new, Point point) {
+        layouts++;
+        super.setZoom(zoom_new, point);
+    }
+    
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        repaints++;
+        super.repaint(tm, x, y, width, height);
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        paints++;
+        super.paintComponent(g);
+    }
+    
+}
@@ -0,0 +1,387 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.stress;
+
+import com.corners.pictureframe.frames.PictureFrame;
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Session class.
+ * 
+ * <p> A scripted sequence of user interactions over a grid of picture frames,
+ * stored as plain text with one step per line:
+ * 
+ * <pre>
+ * resize WIDTH HEIGHT
+ * wheel FRAME X Y ROTATION
+ * drag FRAME X0 Y0 X1 Y1 MOVES
+ * pause MILLIS
+ * </pre>
+ * 
+ * <p> The {@code FRAME} is the index of the picture frame in the grid and the
+ * coordinates are relative to it. Consecutive resizes are replayed as a single
+ * storm, without waiting for the event queue between them. Empty lines and
+ * lines starting with {@code #} are ignored.
+ * 
+ * @author Erick Rincones
+ */
+public class Session {
+    
+    /**
+     * The kinds of step.
+     */
+    public enum Kind {
+        /**
+         * Resizes the grid.
+         */
+        RESIZE(2),
+        
+        /**
+         * Rotates the mouse wheel over a picture frame.
+         */
+        WHEEL(4),
+        
+        /**
+         * Drags the mouse over a picture frame.
+         */
+        DRAG(6),
+        
+        /**
+         * Waits without interaction.
+         */
+        PAUSE(1);
+        
+        /**
+         * The number of arguments of the steps of this kind.
+         */
+        final int arguments;
+        
+        /**
+         * Creates a kind of step.
+         * 
+         * @param arguments the number of arguments
+         */
+        Kind(int arguments) {
+            this.arguments = arguments;
+        }
+    }
+    
+    /**
+     * A step of the session.
+     */
+    public static final class Step {
+        
+        /**
+         * The kind of step.
+         */
+        public final Kind kind;
+        
+        /**
+         * The arguments of the step, in the order of the text format.
+         */
+        public final int[] args;
+        
+        /**
+         * Creates a new step.
+         * 
+         * @param kind the kind of step
+         * @param args the arguments of the step
+         */
+        public Step(Kind kind, int... args) {
+            this.kind = kind;
+            this.args = args;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder line = new StringBuilder(kind.name().toLowerCase());
+            for (int arg : args)
+                line.append(' ').append(arg);
+            
+            return line.toString();
+        }
+        
+    }
+    
+    /**
+     * The minimum gap in milliseconds between two recorded steps to record a
+     * pause.
+     */
+    private static final long MIN_PAUSE = 16L;
+    
+    /**
+     * The steps of the session.
+     */
+    private final List<Step> steps;
+    
+    /**
+     * Creates a new empty session.
+     */
+    public Session() {
+        steps = new ArrayList<>();
+    }
+    
+    /**
+     * Gets the steps of the session.
+     * 
+     * @return the steps
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+    
+    /**
+     * Reads a session from a text file.
+     * 
+     * @param file the session file
+     * 
+     * @return the session
+     * 
+     * @throws IOException if the file cannot be read or has an invalid line
+     */
+    public static Session read(Path file) throws IOException {
+        Session session = new Session();
+        
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            for (int number = 1; (line = in.readLine()) != null; number++) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                
+                // Parse the kind and the arguments
+                String[] tokens = line.split("\\s+");
+                try {
+                    Kind kind = Kind.valueOf(tokens[0].toUpperCase());
+                    int[] args = new int[tokens.length - 1];
+                    for (int i = 0; i < args.length; i++)
+                        args[i] = Integer.parseInt(tokens[i + 1]);
+                    
+                    // Check the number of arguments of the kind
+                    if (args.length != kind.arguments)
+                        throw new IOException(file + ":" + number + ": expected " + kind.arguments +
+                                " arguments: " + line);
+                    
+                    session.steps.add(new Step(kind, args));
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException(file + ":" + number + ": invalid step: " + line, ex);
+                }
+            }
+        }
+        
+        return session;
+    }
+    
+    /**
+     * Writes the session to a text file.
+     * 
+     * @param file the session file
+     * 
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# pictureframe session");
+            for (Step step : steps)
+                out.println(step);
+        }
+    }
+    
+    /**
+     * Generates a random session.
+     * 
+     * <p> About half of the steps are resize storms around the given grid
+     * size, bursts of consecutive resizes like the ones of a window being
+     * dragged, and the rest are wheel zooms, drags and short pauses over
+     * random picture frames.
+     * 
+     * @param seed   the random seed
+     * @param count  the number of steps
+     * @param frames the number of picture frames in the grid
+     * @param width  the width of the grid
+     * @param height the height of the grid
+     * @param cell   the approximate size of a picture frame
+     * 
+     * @return the session
+     */
+    public static Session generate(long seed, int count, int frames, int width, int height, int cell) {
+        Random random = new Random(seed);
+        Session session = new Session();
+        
+        for (int i = 0; i < count; i++) {
+            int frame = random.nextInt(frames);
+            int choice = random.nextInt(20);
+            
+            if (choice < 9) {
+                int resize_width = width / 2 + random.nextInt(width);
+                int resize_height = height / 2 + random.nextInt(height);
+                for (int burst = 2 + random.nextInt(8); burst > 0 && i < count; burst--, i++) {
+                    resize_width += random.nextInt(33) - 16;
+                    resize_height += random.nextInt(33) - 16;
+                    session.steps.add(new Step(Kind.RESIZE, resize_width, resize_height));
+                }
+                
+                i--;
+            }
+            
+            else if (choice < 14) {
+                session.steps.add(new Step(Kind.WHEEL, frame, random.nextInt(cell), random.nextInt(cell), random.nextBoolean() ? -1 : 1));
+            }
+            
+            else if (choice < 19) {
+                session.steps.add(new Step(Kind.DRAG, frame, random.nextInt(cell), random.nextInt(cell),
+                        random.nextInt(cell), random.nextInt(cell), 4 + random.nextInt(12)));
+            }
+            
+            else {
+                session.steps.add(new Step(Kind.PAUSE, 1 + random.nextInt(32)));
+            }
+        }
+        
+        return session;
+    }
+    
+    /**
+     * Starts recording the interactions with the given grid.
+     * 
+     * <p> The resizes of the grid and the wheel and drag events over its
+     * picture frames are appended to the returned session until the returned
+     * listener is removed from the default toolkit.
+     * 
+     * @param grid    the container of the picture frames
+     * @param session the session to append the steps
+     * 
+     * @return the listener added to the default toolkit
+     */
+    public static AWTEventListener record(Container grid, Session session) {
+        AWTEventListener listener = new AWTEventListener() {
+            /**
+             * The time of the last recorded step.
+             */
+            private long last;
+            
+            /**
+             * The press of the drag in progress, or {@code null}.
+             */
+            private MouseEvent press;
+            
+            /**
+             * The number of moves of the drag in progress.
+             */
+            private int moves;
+            
+            @Override
+            public void eventDispatched(AWTEvent event) {
+                Component source = (Component) event.getSource();
+                
+                // Record the resizes of the grid
+                if (source == grid && event.getID() == ComponentEvent.COMPONENT_RESIZED) {
+                    add(new Step(Kind.RESIZE, grid.getWidth(), grid.getHeight()), System.currentTimeMillis());
+                    return;
+                }
+                
+                // Record the mouse over the picture frames
+                if (!(event instanceof MouseEvent) || !(source instanceof PictureFrame) || source.getParent() != grid)
+                    return;
+                
+                int frame = indexOf(grid, source);
+                MouseEvent e = (MouseEvent) event;
+                switch (e.getID()) {
+                    case MouseEvent.MOUSE_WHEEL:
+                        add(new Step(Kind.WHEEL, frame, e.getX(), e.getY(), ((MouseWheelEvent) e).getWheelRotation()), e.getWhen());
+                        break;
+                    
+                    case MouseEvent.MOUSE_PRESSED:
+                        press = e;
+                        moves = 0;
+                        break;
+                    
+                    case MouseEvent.MOUSE_DRAGGED:
+                        moves++;
+                        break;
+                    
+                    case MouseEvent.MOUSE_RELEASED:
+                        if (press != null && moves > 0)
+                            add(new Step(Kind.DRAG, frame, press.getX(), press.getY(), e.getX(), e.getY(), moves), press.getWhen());
+                        press = null;
+                        break;
+                    
+                    default:
+                        break;
+                }
+            }
+            
+            /**
+             * Appends a step, preceded by the pause since the last step.
+             * 
+             * @param step the step to append
+             * @param when the time of the step in milliseconds
+             */
+            private void add(Step step, long when) {
+                synchronized (session) {
+                    if (last > 0L && when - last >= MIN_PAUSE)
+                        session.steps.add(new Step(Kind.PAUSE, (int) (when - last)));
+                    
+                    session.steps.add(step);
+                    last = when;
+                }
+            }
+        };
+        
+        Toolkit.getDefaultToolkit().addAWTEventListener(listener,
+                AWTEvent.COMPONENT_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+        return listener;
+    }
+    
+    /**
+     * Gets the index of a component in its container.
+     * 
+     * @param container the container
+     * @param component the component to find
+     * 
+     * @return the index of the component, or {@code -1} if is not found
+     */
+    private static int indexOf(Container container, Component component) {
+        for (int i = 0; i < container.getComponentCount(); i++)
+            if (container.getComponent(i) == component) return i;
+        
+        return -1;
+    }
+    
+}
@@ -0,0 +1,609 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Erick Rincones.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.corners.pictureframe.stress;
+
+import com.corners.pictureframe.frames.ImageMemoryManager;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.GridLayout;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+
+/**
+ * Stress harness class.
+ * 
+ * <p> Creates a large grid of picture frames with varied images, replays a
+ * recorded or generated {@link Session} over it and reports the latency of the
+ * event dispatch thread, the layout passes, repaint requests and paints of the
+ * picture frames, and the allocation and heap high-water marks.
+ * 
+ * <p> Runs headless with {@code -Djava.awt.headless=true}, painting the grid
+ * into an offscreen image after each step, or in a window with
+ * {@code --window}. The options are:
+ * 
+ * <pre>
+ * --frames=N      number of picture frames (144)
+ * --columns=N     columns of the grid (12)
+ * --cell=N        initial size of each picture frame in pixels (160)
+ * --images=N      number of distinct images (24)
+ * --steps=N       steps of the generated session (200)
+ * --seed=N        random seed (1)
+ * --budget=BYTES  image memory budget, 0 to disable (0)
+ * --session=FILE  replay the session in the file instead of a generated one
+ * --save=FILE     save the replayed session to the file
+ * --record=FILE   record a session in a window and save it to the file
+ * --window        replay in a window
+ * </pre>
+ * 
+ * <p> The images are set with a loader that returns the shared image, so the
+ * memory manager can reduce them when a budget is given. The picture frames
+ * of a headless grid are never showing, so the evicted ones keep painting
+ * their thumbnails.
+ * 
+ * @author Erick Rincones
+ */
+public final class StressHarness {
+    
+    /**
+     * The maximum number of latency samples.
+     */
+    private static final int MAX_SAMPLES = 1 << 20;
+    
+    /**
+     * The time in milliseconds between two drag moves.
+     */
+    private static final long MOVE_DELAY = 8L;
+    
+    /**
+     * The number of picture frames.
+     */
+    private int frame_count = 144;
+    
+    /**
+     * The number of columns of the grid.
+     */
+    private int columns = 12;
+    
+    /**
+     * The initial size of each picture frame.
+     */
+    private int cell = 160;
+    
+    /**
+     * The number of distinct images.
+     */
+    private int image_count = 24;
+    
+    /**
+     * The number of steps of the generated session.
+     */
+    private int step_count = 200;
+    
+    /**
+     * The random seed.
+     */
+    private long seed = 1L;
+    
+    /**
+     * The image memory budget.
+     */
+    private long budget;
+    
+    /**
+     * The session file to replay, or {@code null} to generate one.
+     */
+    private Path session_file;
+    
+    /**
+     * The file to save the replayed session, or {@code null}.
+     */
+    private Path save_file;
+    
+    /**
+     * The file to save the recorded session, or {@code null} to replay.
+     */
+    private Path record_file;
+    
+    /**
+     * Flag to replay in a window.
+     */
+    private boolean window;
+    
+    /**
+     * The grid of picture frames.
+     */
+    private JPanel grid;
+    
+    /**
+     * The picture frames of the grid.
+     */
+    private CountingFrame[] frames;
+    
+    /**
+     * The window of the grid, or {@code null} if is headless.
+     */
+    private JFrame frame_window;
+    
+    /**
+     * The offscreen image where the headless grid is painted.
+     */
+    private BufferedImage canvas;
+    
+    /**
+     * The latency samples of the event dispatch thread in nanoseconds.
+     */
+    private final long[] latencies = new long[MAX_SAMPLES];
+    
+    /**
+     * The number of latency samples.
+     */
+    private int latency_count;
+    
+    /**
+     * The time in nanoseconds when the last latency probe was posted.
+     */
+    private volatile long probe_time;
+    
+    /**
+     * The probe that records the latency of the event dispatch thread.
+     */
+    private final Runnable probe = () -> {
+        if (latency_count < MAX_SAMPLES)
+            latencies[latency_count++] = System.nanoTime() - probe_time;
+    };
+    
+    /**
+     * Flag to keep sampling the latency.
+     */
+    private volatile boolean sampling;
+    
+    /**
+     * Flag to know if the event queue is empty.
+     */
+    private boolean idle;
+    
+    /**
+     * Runs the stress harness.
+     * 
+     * @param args the options
+     * 
+     * @throws Exception if the session cannot be read or written, or the
+     *                   event dispatch thread is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        StressHarness harness = new StressHarness();
+        harness.parse(args);
+        
+        if (harness.record_file != null) harness.record();
+        else                             harness.replay();
+    }
+    
+    /**
+     * Parses the options.
+     * 
+     * @param args the options
+     */
+    private void parse(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = equals < 0 ? arg : arg.substring(0, equals);
+            String value = equals < 0 ? "" : arg.substring(equals + 1);
+            
+            switch (name) {
+                case "--frames":  frame_count = Integer.parseInt(value); break;
+                case "--columns": columns = Integer.parseInt(value);     break;
+                case "--cell":    cell = Integer.parseInt(value);        break;
+                case "--images":  image_count = Integer.parseInt(value); break;
+                case "--steps":   step_count = Integer.parseInt(value);  break;
+                case "--seed":    seed = Long.parseLong(value);          break;
+                case "--budget":  budget = Long.parseLong(value);        break;
+                case "--session": session_file = Paths.get(value);       break;
+                case "--save":    save_file = Paths.get(value);          break;
+                case "--record":  record_file = Paths.get(value);        break;
+                case "--window":  window = true;                         break;
+                default: throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+    
+    /**
+     * Records a session in a window until it is closed.
+     * 
+     * @throws Exception if the session cannot be written
+     */
+    private void record() throws Exception {
+        window = true;
+        ImageMemoryManager.getInstance().setBudget(budget);
+        EventQueue.invokeAndWait(this::build);
+        
+        // Record until the window is closed
+        Session session = new Session();
+        CountDownLatch closed = new CountDownLatch(1);
+        AWTEventListener listener = Session.record(grid, session);
+        EventQueue.invokeAndWait(() -> frame_window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closed.countDown();
+            }
+        }));
+        
+        closed.await();
+        Toolkit.getDefaultToolkit().removeAWTEventListener(listener);
+        
+        synchronized (session) {
+            session.write(record_file);
+            System.out.println("Recorded " + session.getSteps().size() + " steps into " + record_file);
+        }
+        
+        System.exit(0);
+    }
+    
+    /**
+     * Replays the session and prints the report.
+     * 
+     * @throws Exception if the session cannot be read or written
+     */
+    private void replay() throws Exception {
+        window &= !GraphicsEnvironment.isHeadless();
+        ImageMemoryManager.getInstance().setBudget(budget);
+        EventQueue.invokeAndWait(this::build);
+        
+        // Load the session
+        int rows = (frame_count + columns - 1) / columns;
+        Session session = session_file != null ? Session.read(session_file) :
+                Session.generate(seed, step_count, frame_count, columns * cell, rows * cell, cell);
+        if (save_file != null) session.write(save_file);
+        
+        // Let the initial layout settle and reset the counters
+        drain();
+        EventQueue.invokeAndWait(() -> {
+            for (CountingFrame frame : frames) frame.reset();
+        });
+        
+        // Start measuring
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long[] edt = new long[1];
+        EventQueue.invokeAndWait(() -> edt[0] = Thread.currentThread().getId());
+        long allocated_start = allocated(threads, edt[0]);
+        
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        
+        Thread sampler = startSampler();
+        long[] settles = new long[session.getSteps().size()];
+        int[] kinds = new int[Session.Kind.values().length];
+        long start = System.nanoTime();
+        
+        // Replay the steps
+        for (int i = 0; i < settles.length; i++) {
+            Session.Step step = session.getSteps().get(i);
+            long step_start = System.nanoTime();
+            kinds[step.kind.ordinal()]++;
+            
+            perform(step);
+            
+            // Replay the consecutive resizes as a storm
+            if (step.kind == Session.Kind.RESIZE && i + 1 < settles.length &&
+                    session.getSteps().get(i + 1).kind == Session.Kind.RESIZE) {
+                settles[i] = -1L;
+                continue;
+            }
+            
+            if (!window) EventQueue.invokeAndWait(this::paint);
+            drain();
+            
+            settles[i] = System.nanoTime() - step_start;
+        }
+        
+        long duration = System.nanoTime() - start;
+        sampling = false;
+        sampler.join();
+        
+        // Collect the counters
+        long allocated_end = allocated(threads, edt[0]);
+        long[] counters = new long[5];
+        EventQueue.invokeAndWait(() -> {
+            for (CountingFrame frame : frames) {
+                counters[0] += frame.resizes;
+                counters[1] += frame.layouts;
+                counters[2] += frame.repaints;
+                counters[3] += frame.paints;
+            }
+            
+            counters[4] = ImageMemoryManager.getInstance().getMemoryUsage();
+        });
+        
+        long peak = 0L;
+        long max = 0L;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) continue;
+            peak += pool.getPeakUsage().getUsed();
+            max += Math.max(pool.getUsage().getMax(), 0L);
+        }
+        
+        // Print the report
+        System.out.println("PictureFrame stress harness");
+        System.out.printf("  frames             %d (%d columns, %d images)%n", frame_count, columns, image_count);
+        System.out.printf("  steps              %d (resize %d, wheel %d, drag %d, pause %d)%n", settles.length,
+                kinds[Session.Kind.RESIZE.ordinal()], kinds[Session.Kind.WHEEL.ordinal()],
+                kinds[Session.Kind.DRAG.ordinal()], kinds[Session.Kind.PAUSE.ordinal()]);
+        System.out.printf("  duration           %.2f s%n", duration / 1e9);
+        System.out.println("  EDT latency (ms)   " + percentiles(Arrays.copyOf(latencies, latency_count)));
+        System.out.println("  step settle (ms)   " + percentiles(Arrays.stream(settles).filter(settle -> settle >= 0L).toArray()));
+        System.out.printf("  resize events      %d%n", counters[0]);
+        System.out.printf("  layout passes      %d (%.3f per resize event)%n", counters[1], counters[0] == 0L ? 0D : (double) counters[1] / counters[0]);
+        System.out.printf("  repaint requests   %d%n", counters[2]);
+        System.out.printf("  paints             %d%n", counters[3]);
+        System.out.println("  EDT allocation     " + (allocated_start < 0L ? "unsupported" : megabytes(allocated_end - allocated_start)));
+        System.out.println("  heap high-water    " + megabytes(peak) + " of " + megabytes(max));
+        System.out.println("  tracked images     " + megabytes(counters[4]));
+        
+        if (frame_window != null) frame_window.dispose();
+        System.exit(0);
+    }
+    
+    /**
+     * Builds the grid of picture frames with varied images and orientations.
+     * 
+     * <p> Must be called on the event dispatch thread.
+     */
+    private void build() {
+        Random random = new Random(seed);
+        
+        // Create the images
+        BufferedImage[] images = new BufferedImage[image_count];
+        int[] types = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR};
+        for (int i = 0; i < image_count; i++)
+            images[i] = image(random, 256 + random.nextInt(1793), 256 + random.nextInt(1793), types[i % types.length]);
+        
+        // Create the picture frames
+        int rows = (frame_count + columns - 1) / columns;
+        grid = new JPanel(new GridLayout(rows, columns));
+        frames = new CountingFrame[frame_count];
+        for (int i = 0; i < frame_count; i++) {
+            BufferedImage image = images[i % image_count];
+            frames[i] = new CountingFrame();
+            frames[i].setImage(image, () -> image, true);
+            frames[i].setOrientation(1 + random.nextInt(8));
+            frames[i].setPixelGrid(random.nextBoolean());
+            grid.add(frames[i]);
+        }
+        
+        // Layout the grid
+        Dimension size = new Dimension(columns * cell, rows * cell);
+        if (window) {
+            grid.setPreferredSize(size);
+            frame_window = new JFrame("PictureFrame stress harness");
+            frame_window.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+            frame_window.setContentPane(grid);
+            frame_window.pack();
+            frame_window.setVisible(true);
+        }
+        
+        else {
+            grid.setSize(size);
+            grid.doLayout();
+            canvas = new BufferedImage(size.width * 3 / 2, size.height * 3 / 2, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+    
+    /**
+     * Creates an image with gradients and random rectangles.
+     * 
+     * @param random the random generator
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @param type   the type of the image
+     * 
+     * @return the new image
+     */
+    private static BufferedImage image(Random random, int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g2d = image.createGraphics();
+        
+        g2d.setPaint(new GradientPaint(0F, 0F, new Color(random.nextInt()), width, height, new Color(random.nextInt())));
+        g2d.fillRect(0, 0, width, height);
+        for (int i = 0; i < 64; i++) {
+            g2d.setColor(new Color(random.nextInt(), true));
+            g2d.fillRect(random.nextInt(width), random.nextInt(height), 1 + random.nextInt(width >> 2), 1 + random.nextInt(height >> 2));
+        }
+        
+        g2d.dispose();
+        return image;
+    }
+    
+    /**
+     * Performs a step of the session.
+     * 
+     * <p> The mouse events are posted to the event queue like the native
+     * events, spacing the drag moves by {@link MOVE_DELAY}.
+     * 
+     * @param step the step to perform
+     * 
+     * @throws Exception if the thread is interrupted
+     */
+    private void perform(Session.Step step) throws Exception {
+        EventQueue queue = Toolkit.getDefaultToolkit().getSystemEventQueue();
+        int[] args = step.args;
+        
+        switch (step.kind) {
+            case RESIZE:
+                EventQueue.invokeLater(() -> {
+                    if (window) {
+                        grid.setPreferredSize(new Dimension(args[0], args[1]));
+                        frame_window.pack();
+                    }
+                    
+                    else {
+                        grid.setSize(args[0], args[1]);
+                        grid.doLayout();
+                    }
+                });
+                break;
+            
+            case WHEEL: {
+                Component frame = frames[args[0] % frames.length];
+                queue.postEvent(new MouseWheelEvent(frame, MouseEvent.MOUSE_WHEEL, System.currentTimeMillis(), 0,
+                        args[1], args[2], 0, false, MouseWheelEvent.WHEEL_UNIT_SCROLL, 3, args[3]));
+                break;
+            }
+            
+            case DRAG: {
+                Component frame = frames[args[0] % frames.length];
+                int moves = Math.max(args[5], 1);
+                queue.postEvent(new MouseEvent(frame, MouseEvent.MOUSE_PRESSED, System.currentTimeMillis(),
+                        MouseEvent.BUTTON1_DOWN_MASK, args[1], args[2], 1, false, MouseEvent.BUTTON1));
+                
+                for (int i = 1; i <= moves; i++) {
+                    Thread.sleep(MOVE_DELAY);
+                    queue.postEvent(new MouseEvent(frame, MouseEvent.MOUSE_DRAGGED, System.currentTimeMillis(), MouseEvent.BUTTON1_DOWN_MASK,
+                            args[1] + (args[3] - args[1]) * i / moves, args[2] + (args[4] - args[2]) * i / moves, 1, false, MouseEvent.NOBUTTON));
+                }
+                
+                queue.postEvent(new MouseEvent(frame, MouseEvent.MOUSE_RELEASED, System.currentTimeMillis(), 0,
+                        args[3], args[4], 1, false, MouseEvent.BUTTON1));
+                break;
+            }
+            
+            case PAUSE:
+                Thread.sleep(args[0]);
+                break;
+        }
+    }
+    
+    /**
+     * Paints the headless grid into the offscreen {@link canvas}.
+     * 
+     * <p> Must be called on the event dispatch thread.
+     */
+    private void paint() {
+        Graphics2D g2d = canvas.createGraphics();
+        g2d.setClip(0, 0, Math.min(grid.getWidth(), canvas.getWidth()), Math.min(grid.getHeight(), canvas.getHeight()));
+        grid.paint(g2d);
+        g2d.dispose();
+    }
+    
+    /**
+     * Starts the thread that samples the latency of the event dispatch
+     * thread, posting a {@link probe} each millisecond.
+     * 
+     * @return the sampler thread
+     */
+    private Thread startSampler() {
+        sampling = true;
+        Thread sampler = new Thread(() -> {
+            try {
+                while (sampling) {
+                    probe_time = System.nanoTime();
+                    EventQueue.invokeAndWait(probe);
+                    Thread.sleep(1L);
+                }
+            } catch (Exception ex) {
+                sampling = false;
+            }
+        }, "latency-sampler");
+        
+        sampler.setDaemon(true);
+        sampler.start();
+        return sampler;
+    }
+    
+    /**
+     * Waits until the event queue is empty.
+     * 
+     * <p> Gives up after a second, since running animations keep posting
+     * events.
+     * 
+     * @throws Exception if the thread is interrupted
+     */
+    private void drain() throws Exception {
+        long deadline = System.nanoTime() + 1000000000L;
+        do {
+            EventQueue.invokeAndWait(() -> idle = Toolkit.getDefaultToolkit().getSystemEventQueue().peekEvent() == null);
+        } while (!idle && System.nanoTime() < deadline);
+    }
+    
+    /**
+     * Gets the bytes allocated by a thread.
+     * 
+     * @param threads the thread bean
+     * @param id      the thread id
+     * 
+     * @return the allocated bytes, or {@code -1} if is not supported
+     */
+    private static long allocated(ThreadMXBean threads, long id) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) return -1L;
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(id);
+    }
+    
+    /**
+     * Formats the percentiles of the given samples in milliseconds.
+     * 
+     * @param samples the samples in nanoseconds
+     * 
+     * @return the formatted percentiles
+     */
+    private static String percentiles(long[] samples) {
+        if (samples.length == 0) return "no samples";
+        
+        Arrays.sort(samples);
+        return String.format("p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f  (%d samples)",
+                samples[(int) (samples.length * 0.5)] / 1e6, samples[(int) (samples.length * 0.9)] / 1e6,
+                samples[(int) (samples.length * 0.99)] / 1e6, samples[(int) (samples.length * 0.999)] / 1e6,
+                samples[samples.length - 1] / 1e6, samples.length);
+    }
+    
+    /**
+     * Formats the given bytes in megabytes.
+     * 
+     * @param bytes the bytes
+     * 
+     * @return the formatted megabytes
+     */
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / 1048576D);
+    }
+    
+}